@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Blending of the indicator colors of two adjacent tabs, computed on each frame or read from the
+ * precomputed ramp.
+ */
+@State(Scope.Thread)
+public class BlendColorsBenchmark {
+
+  private static final int FRAMES = 64;
+
+  public int color1 = 0xFF33B5E5;
+  public int color2 = 0xFFFF4081;
+  private final IndicatorColors indicatorColors = new IndicatorColors();
+  private int frame;
+
+  @Setup
+  public void setUp() {
+    indicatorColors.setCount(2);
+    indicatorColors.setColor(0, color2);
+    indicatorColors.setColor(1, color1);
+    indicatorColors.updateRamps();
+  }
+
+  @Benchmark
+  public int blend() {
+    frame = (frame + 1) % FRAMES;
+    return Colors.blend(color1, color2, (float) frame / FRAMES);
+  }
+
+  @Benchmark
+  public int ramp() {
+    frame = (frame + 1) % FRAMES;
+    return indicatorColors.getColor(0, (float) frame / FRAMES);
+  }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Edge and thickness computation of the indicator for one frame of a page scroll.
+ */
+@State(Scope.Thread)
+public class IndicationInterpolatorBenchmark {
+
+  private static final int FRAMES = 64;
+
+  @Param({ "smart", "smart_lut", "linear" })
+  public String interpolation;
+
+  private SmartTabIndicationInterpolator interpolator;
+  private int frame;
+
+  @Setup
+  public void setUp() {
+    if ("smart".equals(interpolation)) {
+      interpolator = SmartTabIndicationInterpolator.SMART;
+    } else if ("smart_lut".equals(interpolation)) {
+      interpolator = SmartTabIndicationInterpolator.SMART_LUT;
+    } else {
+      interpolator = SmartTabIndicationInterpolator.LINEAR;
+    }
+  }
+
+  @Benchmark
+  public float edges() {
+    frame = (frame + 1) % FRAMES;
+    float offset = (float) frame / FRAMES;
+    return interpolator.getLeftEdge(offset)
+        + interpolator.getRightEdge(offset)
+        + interpolator.getThickness(offset);
+  }
+
+}
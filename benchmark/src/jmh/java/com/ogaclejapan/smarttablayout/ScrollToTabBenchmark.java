@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Scroll position computed by {@link SmartTabLayout} for one frame of a page scroll.
+ */
+@State(Scope.Thread)
+public class ScrollToTabBenchmark {
+
+  private static final int FRAMES = 64;
+  private static final int WIDTH = 1080;
+  private static final int TITLE_OFFSET = 72;
+
+  @Param({ "normal", "auto_center", "always_in_center" })
+  public String mode;
+
+  @Param({ "false", "true" })
+  public boolean rtl;
+
+  @Param({ "300" })
+  public int tabCount;
+
+  private TabGeometry geometry;
+  private boolean indicatorAlwaysInCenter;
+  private int titleOffset;
+  private int frame;
+
+  @Setup
+  public void setUp() {
+    geometry = Geometries.create(tabCount, rtl);
+    indicatorAlwaysInCenter = "always_in_center".equals(mode);
+    titleOffset = "auto_center".equals(mode) ? TabScroller.TITLE_OFFSET_AUTO_CENTER : TITLE_OFFSET;
+  }
+
+  @Benchmark
+  public int scrollX() {
+    frame = (frame + 1) % (FRAMES * (tabCount - 1));
+    int position = frame / FRAMES;
+    float positionOffset = (float) (frame % FRAMES) / FRAMES;
+    return TabScroller.getScrollX(geometry, position, positionOffset,
+        indicatorAlwaysInCenter, titleOffset, WIDTH, 0, 0);
+  }
+
+}
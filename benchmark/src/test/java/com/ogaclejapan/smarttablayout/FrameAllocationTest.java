@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Fails if the indicator and scroll math computed on each frame of a page scroll allocates.
+ * These run on the UI thread for every {@code onPageScrolled}, where an allocation per frame
+ * eventually causes a garbage collection in the middle of a drag.
+ */
+public class FrameAllocationTest {
+
+  private static final int TAB_COUNT = 300;
+  private static final int FRAMES = 64;
+  private static final int WIDTH = 1080;
+  private static final int TITLE_OFFSET = 72;
+  private static final int WARMUP_DRAGS = 20;
+
+  private static final SmartTabIndicationInterpolator[] INTERPOLATORS = {
+      SmartTabIndicationInterpolator.SMART,
+      SmartTabIndicationInterpolator.LINEAR,
+      SmartTabIndicationInterpolator.SMART_LUT,
+  };
+
+  private com.sun.management.ThreadMXBean threadMXBean;
+  private final IndicatorColors indicatorColors = new IndicatorColors();
+  private TabGeometry ltrGeometry;
+  private TabGeometry rtlGeometry;
+  private int sink;
+
+  @Before
+  public void setUp() {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+    ltrGeometry = Geometries.create(TAB_COUNT, false);
+    rtlGeometry = Geometries.create(TAB_COUNT, true);
+    indicatorColors.setCount(TAB_COUNT);
+    for (int i = 0; i < TAB_COUNT; i++) {
+      // Repeat the same color now and then, which has no ramp
+      indicatorColors.setColor(i, (i % 3 == 0) ? 0xFF33B5E5 : 0xFF000000 | (i * 0x010203));
+    }
+    indicatorColors.updateRamps();
+  }
+
+  @Test
+  public void dragDoesNotAllocate() {
+    for (int i = 0; i < WARMUP_DRAGS; i++) {
+      drag(ltrGeometry);
+      drag(rtlGeometry);
+    }
+
+    final long overhead = allocatedBytes(false);
+    final long allocated = allocatedBytes(true);
+    assertEquals("allocated bytes of " + 2 * FRAMES * (TAB_COUNT - 1) + " frames",
+        0, allocated - overhead);
+  }
+
+  private long allocatedBytes(boolean drag) {
+    final long threadId = Thread.currentThread().getId();
+    final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+    if (drag) {
+      drag(ltrGeometry);
+      drag(rtlGeometry);
+    }
+    return threadMXBean.getThreadAllocatedBytes(threadId) - start;
+  }
+
+  /**
+   * Scroll from the first to the last tab, with what is computed on each frame.
+   */
+  private void drag(TabGeometry geometry) {
+    for (int position = 0; position < TAB_COUNT - 1; position++) {
+      for (int frame = 0; frame < FRAMES; frame++) {
+        final float offset = (float) frame / FRAMES;
+        for (SmartTabIndicationInterpolator interpolator : INTERPOLATORS) {
+          sink += (int) (interpolator.getLeftEdge(offset) * WIDTH);
+          sink += (int) (interpolator.getRightEdge(offset) * WIDTH);
+          sink += (int) interpolator.getThickness(offset);
+        }
+        sink += indicatorColors.getColor(position, offset);
+
+        final int normal = TabScroller.getScrollX(geometry, position, offset, false,
+            TITLE_OFFSET, WIDTH, 0, 0);
+        final int autoCenter = TabScroller.getScrollX(geometry, position, offset, false,
+            TabScroller.TITLE_OFFSET_AUTO_CENTER, WIDTH, 0, 0);
+        final int alwaysInCenter = TabScroller.getScrollX(geometry, position, offset, true,
+            TITLE_OFFSET, WIDTH, WIDTH / 2, WIDTH);
+        sink += normal + autoCenter + alwaysInCenter;
+
+        // The tabs within the viewport and under its center
+        sink += geometry.getFirstPositionIn(normal, normal + WIDTH);
+        sink += geometry.getLastPositionIn(normal, normal + WIDTH);
+        sink += geometry.getPositionAt(normal + WIDTH / 2);
+      }
+    }
+  }
+
+}
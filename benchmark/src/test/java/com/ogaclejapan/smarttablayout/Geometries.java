@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+/**
+ * Builds a {@link TabGeometry} laid out the same way as {@link SmartTabStrip}.
+ */
+final class Geometries {
+
+  static final int TAB_PADDING = 48;
+  static final int TAB_MARGIN = 8;
+
+  static TabGeometry create(int tabCount, boolean layoutRtl) {
+    final TabGeometry geometry = new TabGeometry();
+    geometry.setCount(tabCount);
+    geometry.setLayoutRtl(layoutRtl);
+    for (int i = 0; i < tabCount; i++) {
+      // Vary the widths like titles of different lengths
+      int width = 2 * TAB_PADDING + 40 + (i * 37) % 160;
+      geometry.setMeasurement(i, width, TAB_MARGIN, TAB_MARGIN, TAB_PADDING, TAB_PADDING);
+    }
+    geometry.updateOffsets();
+
+    final int stripWidth = geometry.getContentWidth();
+    for (int i = 0; i < tabCount; i++) {
+      int start = geometry.getOffset(i) + geometry.getMarginStart(i);
+      int left = (layoutRtl) ? stripWidth - start - geometry.getWidth(i) : start;
+      geometry.setLeft(i, left);
+    }
+    geometry.updateEdges();
+    return geometry;
+  }
+
+  private Geometries() { }
+
+}
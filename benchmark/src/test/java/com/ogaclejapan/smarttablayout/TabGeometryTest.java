@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the binary searches of {@link TabGeometry} with a linear scan of the tabs.
+ */
+public class TabGeometryTest {
+
+  private static final int ITERATIONS = 2000;
+  private static final int MAX_TAB_COUNT = 12;
+
+  @Test
+  public void searchesMatchLinearScan() {
+    final Random random = new Random(1);
+    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+      final boolean layoutRtl = random.nextBoolean();
+      final int tabCount = random.nextInt(MAX_TAB_COUNT);
+      final TabGeometry geometry = new TabGeometry();
+      geometry.setCount(tabCount);
+      geometry.setLayoutRtl(layoutRtl);
+      for (int i = 0; i < tabCount; i++) {
+        // Zero widths stand for the tabs that are gone
+        geometry.setMeasurement(i, random.nextInt(30), random.nextInt(5), random.nextInt(5), 2, 2);
+      }
+      geometry.updateOffsets();
+
+      final int padding = 5;
+      final int width = geometry.getContentWidth() + padding * 2;
+      for (int i = 0; i < tabCount; i++) {
+        int start = geometry.getOffset(i) + geometry.getMarginStart(i);
+        geometry.setLeft(i, (layoutRtl)
+            ? width - padding - start - geometry.getWidth(i)
+            : padding + start);
+      }
+      geometry.updateEdges();
+
+      for (int x = -padding; x < width + padding; x++) {
+        for (int length = 1; length < 40; length += 7) {
+          String message = "rtl=" + layoutRtl + " count=" + tabCount
+              + " range=[" + x + ", " + (x + length) + ")";
+          assertEquals(message, firstPositionIn(geometry, x, x + length),
+              geometry.getFirstPositionIn(x, x + length));
+          assertEquals(message, lastPositionIn(geometry, x, x + length),
+              geometry.getLastPositionIn(x, x + length));
+        }
+        assertEquals("rtl=" + layoutRtl + " count=" + tabCount + " x=" + x,
+            positionAt(geometry, x), geometry.getPositionAt(x));
+      }
+    }
+  }
+
+  @Test
+  public void searchesWithinStrip() {
+    for (boolean layoutRtl : new boolean[] { false, true }) {
+      final TabGeometry geometry = Geometries.create(300, layoutRtl);
+      final int width = geometry.getContentWidth();
+      for (int x = -1; x <= width; x++) {
+        assertEquals(positionAt(geometry, x), geometry.getPositionAt(x));
+        assertEquals(firstPositionIn(geometry, x, x + 1080),
+            geometry.getFirstPositionIn(x, x + 1080));
+        assertEquals(lastPositionIn(geometry, x, x + 1080),
+            geometry.getLastPositionIn(x, x + 1080));
+      }
+    }
+  }
+
+  private static int firstPositionIn(TabGeometry geometry, int left, int right) {
+    for (int i = 0; i < geometry.getCount(); i++) {
+      if (intersects(geometry, i, left, right)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int lastPositionIn(TabGeometry geometry, int left, int right) {
+    for (int i = geometry.getCount() - 1; i >= 0; i--) {
+      if (intersects(geometry, i, left, right)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int positionAt(TabGeometry geometry, int x) {
+    for (int i = 0; i < geometry.getCount(); i++) {
+      if (geometry.getLeft(i) <= x && x < geometry.getRight(i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean intersects(TabGeometry geometry, int position, int left, int right) {
+    return geometry.getLeft(position) < right && geometry.getRight(position) > left;
+  }
+
+}
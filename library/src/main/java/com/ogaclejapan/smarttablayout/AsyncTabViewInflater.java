@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Inflates tab views on a background thread and delivers them to the main thread in batches.
+ * <p>
+ * Like {@code androidx.asynclayoutinflater.view.AsyncLayoutInflater}, the views are inflated by
+ * an inflater without the factories of the activity, since a factory such as the AppCompat view
+ * inflater is not thread safe.
+ */
+final class AsyncTabViewInflater {
+
+  private static final int BATCH_SIZE = 8;
+
+  private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+  private static ExecutorService executor;
+
+  private final Context context;
+  private LayoutInflater inflater;
+  private Request request;
+
+  AsyncTabViewInflater(Context context) {
+    this.context = context;
+  }
+
+  private static synchronized Executor getExecutor() {
+    if (executor == null) {
+      executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "SmartTabLayout-inflater");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return executor;
+  }
+
+  /**
+   * Inflate {@code count} views of {@code layoutResId}. A request in progress is cancelled.
+   *
+   * @param parent the parent used to generate the layout params, the views are not attached
+   */
+  void inflate(int layoutResId, ViewGroup parent, int count, Callback callback) {
+    cancel();
+    if (inflater == null) {
+      // LayoutInflater is not thread safe, so use an instance dedicated to the background thread
+      inflater = new BasicInflater(context);
+    }
+    request = new Request(layoutResId, parent, count, callback);
+    getExecutor().execute(request);
+  }
+
+  void cancel() {
+    if (request != null) {
+      request.cancelled = true;
+      request = null;
+    }
+  }
+
+  boolean isRunning() {
+    return request != null;
+  }
+
+  /**
+   * Receives the inflated views on the main thread.
+   */
+  interface Callback {
+
+    void onTabViewsInflated(int start, View[] tabViews);
+
+    void onComplete();
+
+  }
+
+  /**
+   * Inflater without any factory, which resolves the framework views by their package like
+   * {@code com.android.internal.policy.PhoneLayoutInflater}.
+   */
+  private static class BasicInflater extends LayoutInflater {
+
+    private static final String[] CLASS_PREFIXES = {
+        "android.widget.",
+        "android.webkit.",
+        "android.app."
+    };
+
+    BasicInflater(Context context) {
+      super(context);
+    }
+
+    @Override
+    public LayoutInflater cloneInContext(Context newContext) {
+      return new BasicInflater(newContext);
+    }
+
+    @Override
+    protected View onCreateView(String name, AttributeSet attrs) throws ClassNotFoundException {
+      for (String prefix : CLASS_PREFIXES) {
+        try {
+          View view = createView(name, prefix, attrs);
+          if (view != null) {
+            return view;
+          }
+        } catch (ClassNotFoundException ignored) {
+          // Try the next package
+        }
+      }
+      return super.onCreateView(name, attrs);
+    }
+
+  }
+
+  private final class Request implements Runnable {
+
+    private final int layoutResId;
+    private final ViewGroup parent;
+    private final int count;
+    private final Callback callback;
+    private volatile boolean cancelled;
+
+    Request(int layoutResId, ViewGroup parent, int count, Callback callback) {
+      this.layoutResId = layoutResId;
+      this.parent = parent;
+      this.count = count;
+      this.callback = callback;
+    }
+
+    @Override
+    public void run() {
+      for (int start = 0; start < count && !cancelled; start += BATCH_SIZE) {
+        final int batchStart = start;
+        final View[] tabViews = new View[Math.min(BATCH_SIZE, count - start)];
+        for (int i = 0; i < tabViews.length; i++) {
+          tabViews[i] = inflater.inflate(layoutResId, parent, false);
+        }
+        MAIN_HANDLER.post(new Runnable() {
+          @Override
+          public void run() {
+            if (!cancelled) {
+              callback.onTabViewsInflated(batchStart, tabViews);
+            }
+          }
+        });
+      }
+      MAIN_HANDLER.post(new Runnable() {
+        @Override
+        public void run() {
+          if (!cancelled) {
+            request = null;
+            callback.onComplete();
+          }
+        }
+      });
+    }
+
+  }
+
+}
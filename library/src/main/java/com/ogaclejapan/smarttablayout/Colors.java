@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+/**
+ * Color math on packed ARGB ints, equivalent to {@link android.graphics.Color} but usable on a
+ * plain JVM.
+ */
+final class Colors {
+
+  /**
+   * Blend {@code color1} and {@code color2} using the given ratio. All four channels including
+   * alpha are blended.
+   *
+   * @param ratio of which to blend. 1.0 will return {@code color1}, 0.5 will give an even blend,
+   * 0.0 will return {@code color2}.
+   */
+  static int blend(int color1, int color2, float ratio) {
+    final float inverseRation = 1f - ratio;
+    float a = (alpha(color1) * ratio) + (alpha(color2) * inverseRation);
+    float r = (red(color1) * ratio) + (red(color2) * inverseRation);
+    float g = (green(color1) * ratio) + (green(color2) * inverseRation);
+    float b = (blue(color1) * ratio) + (blue(color2) * inverseRation);
+    return argb((int) a, (int) r, (int) g, (int) b);
+  }
+
+  static int alpha(int color) {
+    return color >>> 24;
+  }
+
+  static int red(int color) {
+    return (color >> 16) & 0xFF;
+  }
+
+  static int green(int color) {
+    return (color >> 8) & 0xFF;
+  }
+
+  static int blue(int color) {
+    return color & 0xFF;
+  }
+
+  static int argb(int alpha, int red, int green, int blue) {
+    return (alpha << 24) | (red << 16) | (green << 8) | blue;
+  }
+
+  private Colors() { }
+
+}
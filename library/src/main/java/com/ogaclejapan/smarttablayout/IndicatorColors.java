@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+/**
+ * Snapshot of the indicator colors of each tab with precomputed blend ramps.
+ * <p>
+ * The colors are copied from the {@link SmartTabLayout.TabColorizer} when it or the number of
+ * tabs changes. For each pair of adjacent tabs with different colors, a ramp of
+ * {@link #RAMP_STEPS} blended colors is built, so the color of a scrolling indicator is an array
+ * read.
+ */
+final class IndicatorColors {
+
+  static final int RAMP_STEPS = 64;
+
+  private static final int[] EMPTY = new int[0];
+  private static final int NO_RAMP = -1;
+
+  private int count;
+  private int[] colors = EMPTY;
+  private int[] rampOffsets = EMPTY;
+  private int[] ramps = EMPTY;
+  private boolean dirty = true;
+
+  /**
+   * Mark the colors to be copied again from the colorizer.
+   */
+  void invalidate() {
+    dirty = true;
+  }
+
+  /**
+   * @return true if the colors must be set again for {@code count} tabs
+   */
+  boolean isDirty(int count) {
+    return dirty || this.count != count;
+  }
+
+  void setCount(int count) {
+    if (colors.length < count) {
+      colors = new int[count];
+      rampOffsets = new int[count];
+    }
+    this.count = count;
+  }
+
+  void setColor(int position, int color) {
+    colors[position] = color;
+  }
+
+  /**
+   * Rebuild the blend ramps. This must be called after the colors of all tabs have been set.
+   */
+  void updateRamps() {
+    int rampCount = 0;
+    for (int i = 0; i < count - 1; i++) {
+      if (colors[i] != colors[i + 1]) {
+        rampOffsets[i] = rampCount * (RAMP_STEPS + 1);
+        rampCount++;
+      } else {
+        rampOffsets[i] = NO_RAMP;
+      }
+    }
+    if (count > 0) {
+      rampOffsets[count - 1] = NO_RAMP;
+    }
+
+    if (ramps.length < rampCount * (RAMP_STEPS + 1)) {
+      ramps = new int[rampCount * (RAMP_STEPS + 1)];
+    }
+    for (int i = 0; i < count - 1; i++) {
+      int offset = rampOffsets[i];
+      if (offset == NO_RAMP) {
+        continue;
+      }
+      for (int step = 0; step <= RAMP_STEPS; step++) {
+        ramps[offset + step] = Colors.blend(colors[i + 1], colors[i], (float) step / RAMP_STEPS);
+      }
+    }
+    dirty = false;
+  }
+
+  int getCount() {
+    return count;
+  }
+
+  int getColor(int position) {
+    return colors[position];
+  }
+
+  /**
+   * @return the color between {@code position} and the next tab
+   * @param offset the offset to the next tab, from 0 to 1
+   */
+  int getColor(int position, float offset) {
+    final int rampOffset = rampOffsets[position];
+    if (rampOffset == NO_RAMP) {
+      return colors[position];
+    }
+    return ramps[rampOffset + (int) (offset * RAMP_STEPS + 0.5f)];
+  }
+
+}
@@ -16,17 +16,22 @@
  */
 package com.ogaclejapan.smarttablayout;
 
-import android.view.animation.AccelerateInterpolator;
-import android.view.animation.DecelerateInterpolator;
-import android.view.animation.Interpolator;
-
+/**
+ * Defines the movement of the indicator between two tabs.
+ * <p>
+ * The edges and thickness are computed on every frame while the pager is scrolled, so
+ * implementations must not allocate objects.
+ */
 public abstract class SmartTabIndicationInterpolator {
 
   public static final SmartTabIndicationInterpolator SMART = new SmartIndicationInterpolator();
   public static final SmartTabIndicationInterpolator LINEAR = new LinearIndicationInterpolator();
+  public static final SmartTabIndicationInterpolator SMART_LUT =
+      new LookupTableIndicationInterpolator(SMART);
 
   static final int ID_SMART = 0;
   static final int ID_LINEAR = 1;
+  static final int ID_SMART_LUT = 2;
 
   public static SmartTabIndicationInterpolator of(int id) {
     switch (id) {
@@ -34,6 +39,8 @@ public abstract class SmartTabIndicationInterpolator {
         return SMART;
       case ID_LINEAR:
         return LINEAR;
+      case ID_SMART_LUT:
+        return SMART_LUT;
       default:
         throw new IllegalArgumentException("Unknown id: " + id);
     }
@@ -51,26 +58,30 @@ public abstract class SmartTabIndicationInterpolator {
 
     private static final float DEFAULT_INDICATOR_INTERPOLATION_FACTOR = 3.0f;
 
-    private final Interpolator leftEdgeInterpolator;
-    private final Interpolator rightEdgeInterpolator;
+    private final double doubleFactor;
 
     public SmartIndicationInterpolator() {
       this(DEFAULT_INDICATOR_INTERPOLATION_FACTOR);
     }
 
     public SmartIndicationInterpolator(float factor) {
-      leftEdgeInterpolator = new AccelerateInterpolator(factor);
-      rightEdgeInterpolator = new DecelerateInterpolator(factor);
+      doubleFactor = 2 * factor;
     }
 
+    /**
+     * Same curve as {@link android.view.animation.AccelerateInterpolator}.
+     */
     @Override
     public float getLeftEdge(float offset) {
-      return leftEdgeInterpolator.getInterpolation(offset);
+      return (float) Math.pow(offset, doubleFactor);
     }
 
+    /**
+     * Same curve as {@link android.view.animation.DecelerateInterpolator}.
+     */
     @Override
     public float getRightEdge(float offset) {
-      return rightEdgeInterpolator.getInterpolation(offset);
+      return (float) (1.0f - Math.pow((1.0f - offset), doubleFactor));
     }
 
     @Override
@@ -93,4 +104,68 @@ public abstract class SmartTabIndicationInterpolator {
     }
 
   }
+
+  /**
+   * Samples the curves of a delegate into fixed-size tables once, and answers by linear
+   * interpolation over the tables so that each frame costs a few array reads.
+   */
+  public static class LookupTableIndicationInterpolator extends SmartTabIndicationInterpolator {
+
+    private static final int DEFAULT_SAMPLE_SIZE = 256;
+
+    private final int sampleSize;
+    private final float[] leftEdges;
+    private final float[] rightEdges;
+    private final float[] thicknesses;
+
+    public LookupTableIndicationInterpolator(SmartTabIndicationInterpolator delegate) {
+      this(delegate, DEFAULT_SAMPLE_SIZE);
+    }
+
+    public LookupTableIndicationInterpolator(SmartTabIndicationInterpolator delegate,
+        int sampleSize) {
+      if (sampleSize < 1) {
+        throw new IllegalArgumentException("sampleSize must be positive: " + sampleSize);
+      }
+      this.sampleSize = sampleSize;
+      this.leftEdges = new float[sampleSize + 1];
+      this.rightEdges = new float[sampleSize + 1];
+      this.thicknesses = new float[sampleSize + 1];
+      for (int i = 0; i <= sampleSize; i++) {
+        float offset = (float) i / sampleSize;
+        leftEdges[i] = delegate.getLeftEdge(offset);
+        rightEdges[i] = delegate.getRightEdge(offset);
+        thicknesses[i] = delegate.getThickness(offset);
+      }
+    }
+
+    @Override
+    public float getLeftEdge(float offset) {
+      return lookup(leftEdges, offset);
+    }
+
+    @Override
+    public float getRightEdge(float offset) {
+      return lookup(rightEdges, offset);
+    }
+
+    @Override
+    public float getThickness(float offset) {
+      return lookup(thicknesses, offset);
+    }
+
+    private float lookup(float[] table, float offset) {
+      if (offset <= 0f) {
+        return table[0];
+      }
+      if (offset >= 1f) {
+        return table[sampleSize];
+      }
+      float position = offset * sampleSize;
+      int index = (int) position;
+      float fraction = position - index;
+      return table[index] + (table[index + 1] - table[index]) * fraction;
+    }
+
+  }
 }
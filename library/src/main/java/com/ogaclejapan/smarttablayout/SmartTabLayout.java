@@ -16,11 +16,16 @@
  */
 package com.ogaclejapan.smarttablayout;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
+import android.database.DataSetObserver;
 import android.graphics.Typeface;
 import android.os.Build;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
@@ -28,10 +33,18 @@ import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.animation.DecelerateInterpolator;
 import android.widget.HorizontalScrollView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.view.ViewCompat;
 import androidx.viewpager.widget.PagerAdapter;
 import androidx.viewpager.widget.ViewPager;
@@ -62,14 +75,19 @@ import androidx.viewpager.widget.ViewPager;
 public class SmartTabLayout extends HorizontalScrollView {
 
   private static final boolean DEFAULT_DISTRIBUTE_EVENLY = false;
+  private static final boolean DEFAULT_DISTRIBUTE_EVENLY_IN_VIEWPORT = false;
   private static final int TITLE_OFFSET_DIPS = 24;
-  private static final int TITLE_OFFSET_AUTO_CENTER = -1;
   private static final int TAB_VIEW_PADDING_DIPS = 16;
   private static final boolean TAB_VIEW_TEXT_ALL_CAPS = true;
   private static final int TAB_VIEW_TEXT_SIZE_SP = 12;
   private static final int TAB_VIEW_TEXT_COLOR = 0xFC000000;
   private static final int TAB_VIEW_TEXT_MIN_WIDTH = 0;
+  private static final boolean DRAW_DEFAULT_TABS = false;
   private static final boolean TAB_CLICKABLE = true;
+  private static final boolean CUSTOM_TAB_ASYNC_INFLATION = false;
+  private static final int MAX_RECYCLED_TAB_VIEWS = 16;
+  private static final boolean JUMP_ANIMATION = false;
+  private static final int JUMP_ANIMATION_DURATION = 300;
 
   protected final SmartTabStrip tabStrip;
   private int titleOffset;
@@ -79,13 +97,32 @@ public class SmartTabLayout extends HorizontalScrollView {
   private float tabViewTextSize;
   private int tabViewTextHorizontalPadding;
   private int tabViewTextMinWidth;
+  private boolean drawDefaultTabs;
   private ViewPager viewPager;
   private ViewPager.OnPageChangeListener viewPagerPageChangeListener;
   private OnScrollChangeListener onScrollChangeListener;
   private TabProvider tabProvider;
   private InternalTabClickListener internalTabClickListener;
+  private InternalTabViewFactory internalTabViewFactory;
+  private TabTitleWidths tabTitleWidths;
+  private Boolean defaultTabViewOverridden;
+  private InternalDataSetObserver internalDataSetObserver;
+  private InternalViewPagerListener internalViewPagerListener;
+  private AsyncTabViewInflater asyncTabViewInflater;
+  private TabViewPool recycledTabViews;
+  private boolean customTabAsyncInflation;
+  private OnTabsPopulatedListener onTabsPopulatedListener;
+  private TabMetrics tabMetrics;
+  private TabImpressions tabImpressions;
+  private InternalScrollToTabRunnable internalScrollToTabRunnable;
+  private InternalJumpAnimator internalJumpAnimator;
+  private boolean jumpAnimation;
+  private PagerAdapter pagerAdapter;
+  private boolean viewPagerBound;
+  private CharSequence[] tabTitles;
   private OnTabClickListener onTabClickListener;
   private boolean distributeEvenly;
+  private boolean distributeEvenlyInViewport;
 
   public SmartTabLayout(Context context) {
     this(context, null);
@@ -111,11 +148,15 @@ public class SmartTabLayout extends HorizontalScrollView {
         TypedValue.COMPLEX_UNIT_SP, TAB_VIEW_TEXT_SIZE_SP, dm);
     int textHorizontalPadding = (int) (TAB_VIEW_PADDING_DIPS * density);
     int textMinWidth = (int) (TAB_VIEW_TEXT_MIN_WIDTH * density);
+    boolean drawDefaultTabs = DRAW_DEFAULT_TABS;
     boolean distributeEvenly = DEFAULT_DISTRIBUTE_EVENLY;
+    boolean distributeEvenlyInViewport = DEFAULT_DISTRIBUTE_EVENLY_IN_VIEWPORT;
     int customTabLayoutId = NO_ID;
     int customTabTextViewId = NO_ID;
+    boolean customTabAsyncInflation = CUSTOM_TAB_ASYNC_INFLATION;
     boolean clickable = TAB_CLICKABLE;
     int titleOffset = (int) (TITLE_OFFSET_DIPS * density);
+    boolean jumpAnimation = JUMP_ANIMATION;
 
     TypedArray a = context.obtainStyledAttributes(
         attrs, R.styleable.stl_SmartTabLayout, defStyle, 0);
@@ -131,18 +172,35 @@ public class SmartTabLayout extends HorizontalScrollView {
         R.styleable.stl_SmartTabLayout_stl_defaultTabTextHorizontalPadding, textHorizontalPadding);
     textMinWidth = a.getDimensionPixelSize(
         R.styleable.stl_SmartTabLayout_stl_defaultTabTextMinWidth, textMinWidth);
+    drawDefaultTabs = a.getBoolean(
+        R.styleable.stl_SmartTabLayout_stl_drawDefaultTabs, drawDefaultTabs);
     customTabLayoutId = a.getResourceId(
         R.styleable.stl_SmartTabLayout_stl_customTabTextLayoutId, customTabLayoutId);
     customTabTextViewId = a.getResourceId(
         R.styleable.stl_SmartTabLayout_stl_customTabTextViewId, customTabTextViewId);
+    customTabAsyncInflation = a.getBoolean(
+        R.styleable.stl_SmartTabLayout_stl_customTabAsyncInflation, customTabAsyncInflation);
     distributeEvenly = a.getBoolean(
         R.styleable.stl_SmartTabLayout_stl_distributeEvenly, distributeEvenly);
+    distributeEvenlyInViewport = a.getBoolean(
+        R.styleable.stl_SmartTabLayout_stl_distributeEvenlyInViewport, distributeEvenlyInViewport);
     clickable = a.getBoolean(
         R.styleable.stl_SmartTabLayout_stl_clickable, clickable);
     titleOffset = a.getLayoutDimension(
         R.styleable.stl_SmartTabLayout_stl_titleOffset, titleOffset);
+    jumpAnimation = a.getBoolean(
+        R.styleable.stl_SmartTabLayout_stl_jumpAnimation, jumpAnimation);
     a.recycle();
 
+    if (tabBackgroundResId == NO_ID) {
+      // Use the Theme's selectableItemBackground to ensure that the View has a pressed state.
+      // It is resolved once here instead of for each tab
+      TypedValue outValue = new TypedValue();
+      context.getTheme().resolveAttribute(android.R.attr.selectableItemBackground,
+          outValue, true);
+      tabBackgroundResId = outValue.resourceId;
+    }
+
     this.titleOffset = titleOffset;
     this.tabViewBackgroundResId = tabBackgroundResId;
     this.tabViewTextAllCaps = textAllCaps;
@@ -152,8 +210,13 @@ public class SmartTabLayout extends HorizontalScrollView {
     this.tabViewTextSize = textSize;
     this.tabViewTextHorizontalPadding = textHorizontalPadding;
     this.tabViewTextMinWidth = textMinWidth;
+    this.drawDefaultTabs = drawDefaultTabs;
     this.internalTabClickListener = clickable ? new InternalTabClickListener() : null;
     this.distributeEvenly = distributeEvenly;
+    this.distributeEvenlyInViewport = distributeEvenlyInViewport;
+    this.customTabAsyncInflation = customTabAsyncInflation;
+    this.jumpAnimation = jumpAnimation;
+    this.recycledTabViews = new TabViewPool(MAX_RECYCLED_TAB_VIEWS);
 
     if (customTabLayoutId != NO_ID) {
       setCustomTabView(customTabLayoutId, customTabTextViewId);
@@ -166,6 +229,18 @@ public class SmartTabLayout extends HorizontalScrollView {
           "'distributeEvenly' and 'indicatorAlwaysInCenter' both use does not support");
     }
 
+    if (distributeEvenly && tabStrip.isVirtualTabs()) {
+      throw new UnsupportedOperationException(
+          "'distributeEvenly' and 'virtualTabs' both use does not support");
+    }
+
+    this.internalTabViewFactory = new InternalTabViewFactory();
+    this.internalDataSetObserver = new InternalDataSetObserver();
+    this.internalViewPagerListener = new InternalViewPagerListener();
+    this.asyncTabViewInflater = new AsyncTabViewInflater(context);
+    this.internalScrollToTabRunnable = new InternalScrollToTabRunnable();
+    this.internalJumpAnimator = new InternalJumpAnimator();
+
     // Make sure that the Tab Strips fills this View
     setFillViewport(!tabStrip.isIndicatorAlwaysInCenter());
 
@@ -176,34 +251,80 @@ public class SmartTabLayout extends HorizontalScrollView {
   @Override
   protected void onScrollChanged(int l, int t, int oldl, int oldt) {
     super.onScrollChanged(l, t, oldl, oldt);
+    tabStrip.onParentScrollChanged();
+    if (tabImpressions != null) {
+      tabImpressions.onTabsMoved();
+    }
     if (onScrollChangeListener != null) {
       onScrollChangeListener.onScrollChanged(l, oldl);
     }
   }
 
   @Override
-  protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-    super.onSizeChanged(w, h, oldw, oldh);
-    if (tabStrip.isIndicatorAlwaysInCenter() && tabStrip.getChildCount() > 0) {
-      View firstTab = tabStrip.getChildAt(0);
-      View lastTab = tabStrip.getChildAt(tabStrip.getChildCount() - 1);
-      int start = (w - Utils.getMeasuredWidth(firstTab)) / 2 - Utils.getMarginStart(firstTab);
-      int end = (w - Utils.getMeasuredWidth(lastTab)) / 2 - Utils.getMarginEnd(lastTab);
-      tabStrip.setMinimumWidth(tabStrip.getMeasuredWidth());
-      ViewCompat.setPaddingRelative(this, start, getPaddingTop(), end, getPaddingBottom());
-      setClipToPadding(false);
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    if (tabStrip.isIndicatorAlwaysInCenter() && tabStrip.getTabCount() > 0) {
+      // The padding centers the first and the last tab. It is applied within this measure pass,
+      // which does not depend on the horizontal padding, instead of requesting another layout
+      final int w = getMeasuredWidth();
+      final int lastTab = tabStrip.getTabCount() - 1;
+      int start = (w - tabStrip.getTabMeasuredWidth(0)) / 2 - tabStrip.getTabMarginStart(0);
+      int end = (w - tabStrip.getTabMeasuredWidth(lastTab)) / 2 - tabStrip.getTabMarginEnd(lastTab);
+      if (start != ViewCompat.getPaddingStart(this) || end != ViewCompat.getPaddingEnd(this)) {
+        ViewCompat.setPaddingRelative(this, start, getPaddingTop(), end, getPaddingBottom());
+        setClipToPadding(false);
+      }
     }
   }
 
+  @Override
+  protected void measureChildWithMargins(View child, int parentWidthMeasureSpec, int widthUsed,
+      int parentHeightMeasureSpec, int heightUsed) {
+    if (!distributeEvenly || !distributeEvenlyInViewport || child != tabStrip
+        || MeasureSpec.getMode(parentWidthMeasureSpec) == MeasureSpec.UNSPECIFIED) {
+      super.measureChildWithMargins(child, parentWidthMeasureSpec, widthUsed,
+          parentHeightMeasureSpec, heightUsed);
+      return;
+    }
+    // HorizontalScrollView measures the strip with an unspecified width first, and again with the
+    // width of the viewport if the tabs fit. Kept within the viewport, the tabs always fill it, so
+    // the strip is measured once with that width and each tab is measured once with its share
+    final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+    final int width = MeasureSpec.getSize(parentWidthMeasureSpec) - getPaddingLeft()
+        - getPaddingRight() - lp.leftMargin - lp.rightMargin - widthUsed;
+    final int childWidthMeasureSpec =
+        MeasureSpec.makeMeasureSpec(Math.max(0, width), MeasureSpec.EXACTLY);
+    final int childHeightMeasureSpec = getChildMeasureSpec(parentHeightMeasureSpec,
+        getPaddingTop() + getPaddingBottom() + lp.topMargin + lp.bottomMargin + heightUsed,
+        lp.height);
+    child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+  }
+
   @Override
   protected void onLayout(boolean changed, int l, int t, int r, int b) {
     super.onLayout(changed, l, t, r, b);
-    // Ensure first scroll
-    if (changed && viewPager != null) {
-      scrollToTab(viewPager.getCurrentItem(), 0);
+    if (tabImpressions != null) {
+      tabImpressions.onTabsMoved();
+    }
+    // Ensure first scroll. It is applied within this layout, so that the frame being laid out is
+    // drawn at the scroll position of the tab. A pending page change already carries it.
+    if (changed && viewPager != null && !internalScrollToTabRunnable.runPending()) {
+      applyScrollToTab(viewPager.getCurrentItem(), 0);
     }
   }
 
+  /**
+   * Enable the trace sections around the population, the creation of the tab views, the scrolling,
+   * the tab clicks and the drawing of all tab layouts, to be inspected with systrace or Perfetto.
+   * These are also the sections measured by {@link TabMetrics}. Disabled by default, which costs
+   * only a check of this flag.
+   *
+   * @param enabled true to emit the trace sections
+   */
+  public static void setTraceEnabled(boolean enabled) {
+    Tracing.setEnabled(enabled);
+  }
+
   /**
    * Set the behavior of the Indicator scrolling feedback.
    *
@@ -232,6 +353,7 @@ public class SmartTabLayout extends HorizontalScrollView {
    */
   public void setDefaultTabTextColor(int color) {
     tabViewTextColors = ColorStateList.valueOf(color);
+    recycledTabViews.clear();
   }
 
   /**
@@ -242,6 +364,20 @@ public class SmartTabLayout extends HorizontalScrollView {
    */
   public void setDefaultTabTextColor(ColorStateList colors) {
     tabViewTextColors = colors;
+    recycledTabViews.clear();
+  }
+
+  /**
+   * Draw the titles of the default tabs on the tab strip instead of creating a view for each tab.
+   * The tabs have no background drawable and {@link #getTabAt(int)} returns null. It has no effect
+   * with a custom tab view or when {@link #createDefaultTabView(CharSequence)} is overridden. This
+   * will need to be called prior to calling {@link #setViewPager(ViewPager)} otherwise it will not
+   * get set
+   *
+   * @param drawDefaultTabs true to draw the default tabs without views
+   */
+  public void setDrawDefaultTabs(boolean drawDefaultTabs) {
+    this.drawDefaultTabs = drawDefaultTabs;
   }
 
   /**
@@ -249,6 +385,31 @@ public class SmartTabLayout extends HorizontalScrollView {
    */
   public void setDistributeEvenly(boolean distributeEvenly) {
     this.distributeEvenly = distributeEvenly;
+    recycledTabViews.clear();
+  }
+
+  /**
+   * Keep the tabs distributed evenly within the width of this layout, even if their content is
+   * wider, instead of scrolling them. Each tab is then measured once with its share instead of
+   * twice. It has no effect unless {@link #setDistributeEvenly(boolean)} is enabled.
+   *
+   * @param inViewport true to always fit the tabs in the width of this layout
+   */
+  public void setDistributeEvenlyInViewport(boolean inViewport) {
+    this.distributeEvenlyInViewport = inViewport;
+    requestLayout();
+  }
+
+  /**
+   * Animate the indicator and the scroll directly to the selected tab, when the pager smoothly
+   * scrolls to a page that is not adjacent to the current one. The pages in between are skipped
+   * instead of being followed one by one.
+   */
+  public void setJumpAnimationEnabled(boolean enabled) {
+    this.jumpAnimation = enabled;
+    if (!enabled) {
+      internalJumpAnimator.cancel();
+    }
   }
 
   /**
@@ -304,6 +465,7 @@ public class SmartTabLayout extends HorizontalScrollView {
    */
   public void setCustomTabView(int layoutResId, int textViewId) {
     tabProvider = new SimpleTabProvider(getContext(), layoutResId, textViewId);
+    recycledTabViews.clear();
   }
 
   /**
@@ -313,19 +475,112 @@ public class SmartTabLayout extends HorizontalScrollView {
    */
   public void setCustomTabView(TabProvider provider) {
     tabProvider = provider;
+    recycledTabViews.clear();
   }
 
   /**
-   * Sets the associated view pager. Note that the assumption here is that the pager content
-   * (number of tabs and tab titles) does not change after this call has been made.
+   * Inflate the custom layout set with {@link #setCustomTabView(int, int)} on a background
+   * thread. The default tabs are shown until the custom tab views are ready. This will need to be
+   * called prior to calling {@link #setViewPager(ViewPager)} otherwise it will not get set
+   *
+   * @param async true to inflate the custom tab views asynchronously
+   * @see #setOnTabsPopulatedListener(OnTabsPopulatedListener)
+   */
+  public void setCustomTabAsyncInflation(boolean async) {
+    customTabAsyncInflation = async;
+  }
+
+  /**
+   * Set {@link OnTabsPopulatedListener} for obtaining the completion of the tabs.
+   *
+   * @param listener the {@link OnTabsPopulatedListener} to set
+   */
+  public void setOnTabsPopulatedListener(OnTabsPopulatedListener listener) {
+    onTabsPopulatedListener = listener;
+  }
+
+  /**
+   * Set {@link OnTabMetricsListener} for obtaining the time spent by this layout in each frame.
+   * The metrics are not collected while no listener is set.
+   *
+   * @param listener the {@link OnTabMetricsListener} to set, or null to stop collecting
+   */
+  public void setOnTabMetricsListener(OnTabMetricsListener listener) {
+    if (tabMetrics != null) {
+      tabMetrics.cancel();
+    }
+    tabMetrics = (listener != null) ? new TabMetrics(this, listener) : null;
+    tabStrip.setTabMetrics(tabMetrics);
+  }
+
+  /**
+   * Set {@link OnTabImpressionListener} for obtaining the tabs that become visible or hidden. The
+   * visible tabs are computed at most once per frame while the tabs are scrolled or laid out.
+   *
+   * @param listener the {@link OnTabImpressionListener} to set, or null to stop tracking
+   */
+  public void setOnTabImpressionListener(OnTabImpressionListener listener) {
+    setOnTabImpressionListener(listener, 0);
+  }
+
+  /**
+   * Set {@link OnTabImpressionListener} for obtaining the tabs that become visible or hidden. The
+   * visible tabs are computed at most once per frame and once per {@code intervalMillis} while the
+   * tabs are scrolled or laid out.
+   *
+   * @param listener the {@link OnTabImpressionListener} to set, or null to stop tracking
+   * @param intervalMillis the minimum interval between two dispatches in milliseconds
+   */
+  public void setOnTabImpressionListener(OnTabImpressionListener listener, long intervalMillis) {
+    if (tabImpressions != null) {
+      tabImpressions.cancel();
+    }
+    tabImpressions = (listener != null)
+        ? new TabImpressions(this, listener, intervalMillis) : null;
+    if (tabImpressions != null) {
+      tabImpressions.onTabsMoved();
+    }
+  }
+
+  /**
+   * Sets the associated view pager. When the adapter notifies a data set change, only the tabs
+   * whose titles have been inserted, removed or moved are updated. Setting the same view pager
+   * again does not register another listener, and the listeners are unregistered while this
+   * layout is detached from the window.
+   * <p>
+   * The tab views of the previous pager are kept and bound to the tabs of the new pager, when they
+   * are the default tabs or created by a {@link RecyclableTabProvider}.
+   * <p>
+   * Setting the same view pager again updates the tabs to the data set of its adapter. The tab
+   * views of a {@link RecyclableTabProvider} and the default tabs are rebound, so their content is
+   * refreshed. The tab views of a plain {@link TabProvider} are only created for the changed
+   * titles.
    */
   public void setViewPager(ViewPager viewPager) {
-    tabStrip.removeAllViews();
+    if (viewPager != null && viewPager == this.viewPager
+        && viewPager.getAdapter() != null && viewPager.getAdapter() == pagerAdapter) {
+      // Rebinding the same pager only needs to reflect the changes of the data set. An unbound
+      // pager is bound again by onAttachedToWindow, which also updates the tabs, so that the
+      // listeners are not registered while this layout is detached
+      if (viewPagerBound) {
+        updateTabStrip();
+      } else if (ViewCompat.isAttachedToWindow(this)) {
+        bindViewPager();
+        updateTabStrip();
+      }
+      return;
+    }
+
+    unbindViewPager();
+    clearTabStrip();
+    pagerAdapter = null;
 
     this.viewPager = viewPager;
-    if (viewPager != null && viewPager.getAdapter() != null) {
-      viewPager.addOnPageChangeListener(new InternalViewPagerListener());
-      populateTabStrip();
+    if (viewPager != null) {
+      bindViewPager();
+      if (pagerAdapter != null) {
+        populateTabStrip();
+      }
     }
   }
 
@@ -334,10 +589,46 @@ public class SmartTabLayout extends HorizontalScrollView {
    *
    * @param position the position at which to get the view from
    * @return the view at the specified position or null if the position does not exist within the
-   * tabs
+   * tabs, the tab is not materialized with {@code stl_virtualTabs} or the tabs are drawn with
+   * {@code stl_drawDefaultTabs}
    */
   public View getTabAt(int position) {
-    return tabStrip.getChildAt(position);
+    return tabStrip.getTabView(position);
+  }
+
+  /**
+   * Returns the position of the tab at the specified horizontal coordinate, found by a binary
+   * search over the laid out tabs.
+   *
+   * @param x the horizontal coordinate relative to this view, like
+   * {@link android.view.MotionEvent#getX()}
+   * @return the position of the tab or -1 if {@code x} is outside of the tabs or within the
+   * margins between them
+   */
+  public int getTabPositionAt(int x) {
+    return tabStrip.getTabGeometry().getPositionAt(x + getScrollX() - tabStrip.getLeft());
+  }
+
+  /**
+   * Returns the position of the first tab visible within the width of this view.
+   *
+   * @return the lowest visible position or -1 if no tab is visible
+   * @see #getLastVisibleTabPosition()
+   */
+  public int getFirstVisibleTabPosition() {
+    final int left = getScrollX() - tabStrip.getLeft();
+    return tabStrip.getTabGeometry().getFirstPositionIn(left, left + getWidth());
+  }
+
+  /**
+   * Returns the position of the last tab visible within the width of this view. The visible tabs
+   * always form a single range from {@link #getFirstVisibleTabPosition()}.
+   *
+   * @return the highest visible position or -1 if no tab is visible
+   */
+  public int getLastVisibleTabPosition() {
+    final int left = getScrollX() - tabStrip.getLeft();
+    return tabStrip.getTabGeometry().getLastPositionIn(left, left + getWidth());
   }
 
   /**
@@ -354,16 +645,7 @@ public class SmartTabLayout extends HorizontalScrollView {
     textView.setLayoutParams(new LinearLayout.LayoutParams(
         LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.MATCH_PARENT));
 
-    if (tabViewBackgroundResId != NO_ID) {
-      textView.setBackgroundResource(tabViewBackgroundResId);
-    } else {
-      // If we're running on Honeycomb or newer, then we can use the Theme's
-      // selectableItemBackground to ensure that the View has a pressed state
-      TypedValue outValue = new TypedValue();
-      getContext().getTheme().resolveAttribute(android.R.attr.selectableItemBackground,
-          outValue, true);
-      textView.setBackgroundResource(outValue.resourceId);
-    }
+    textView.setBackgroundResource(tabViewBackgroundResId);
 
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
       // If we're running on ICS or newer, enable all-caps to match the Action Bar tab style
@@ -381,120 +663,400 @@ public class SmartTabLayout extends HorizontalScrollView {
     return textView;
   }
 
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    if (viewPager != null && !viewPagerBound) {
+      final PagerAdapter lastAdapter = pagerAdapter;
+      bindViewPager();
+      if (pagerAdapter != lastAdapter) {
+        clearTabStrip();
+        if (pagerAdapter != null) {
+          populateTabStrip();
+        }
+      } else if (pagerAdapter != null) {
+        // The data set may have been changed while detached
+        updateTabStrip();
+      }
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    // Do not leak this layout through the listeners of the pager
+    unbindViewPager();
+    super.onDetachedFromWindow();
+  }
+
+  /**
+   * Register the listeners of this layout to the {@link #viewPager} and its adapter. They are
+   * registered only once however many times the pager is bound.
+   */
+  private void bindViewPager() {
+    viewPager.addOnPageChangeListener(internalViewPagerListener);
+    viewPager.addOnAdapterChangeListener(internalViewPagerListener);
+    pagerAdapter = viewPager.getAdapter();
+    if (pagerAdapter != null) {
+      pagerAdapter.registerDataSetObserver(internalDataSetObserver);
+    }
+    viewPagerBound = true;
+  }
+
+  private void unbindViewPager() {
+    // The pager will not report the end of a jump anymore
+    internalJumpAnimator.cancel();
+    if (!viewPagerBound) {
+      return;
+    }
+    viewPager.removeOnPageChangeListener(internalViewPagerListener);
+    viewPager.removeOnAdapterChangeListener(internalViewPagerListener);
+    if (pagerAdapter != null) {
+      pagerAdapter.unregisterDataSetObserver(internalDataSetObserver);
+    }
+    internalViewPagerListener.scrollState = ViewPager.SCROLL_STATE_IDLE;
+    viewPagerBound = false;
+  }
+
   private void populateTabStrip() {
+    final long startNanos =
+        TabMetrics.beginSection(tabMetrics, "SmartTabLayout.populateTabStrip");
+    try {
+      populateTabStripInternal();
+    } finally {
+      TabMetrics.endSection(tabMetrics, TabMetrics.SECTION_POPULATE, startNanos);
+    }
+  }
+
+  private void populateTabStripInternal() {
     final PagerAdapter adapter = viewPager.getAdapter();
+    final boolean async = isCustomTabAsyncInflation();
+    tabTitles = getPageTitles(adapter);
+
+    if (isDrawingDefaultTabs()) {
+      tabStrip.setDrawnTabs(createTabTitleRenderer(), internalTabClickListener, distributeEvenly);
+      tabStrip.setDrawnTabTitles(tabTitles);
+    } else if (isVirtualTabsEnabled()) {
+      tabStrip.setVirtualTabs(adapter.getCount(), internalTabViewFactory);
+    } else if (async) {
+      // The default tabs hold the place of the custom tab views until they have been inflated
+      for (int i = 0; i < adapter.getCount(); i++) {
+        View tabView = createDefaultTabView(adapter.getPageTitle(i));
+        setupTabView(tabView, i, TabViewPool.NO_TYPE);
+        tabStrip.addView(tabView);
+        if (tabMetrics != null) {
+          tabMetrics.onTabViewCreated();
+        }
+      }
+    } else {
+      for (int i = 0; i < adapter.getCount(); i++) {
+        tabStrip.addView(createTabView(adapter, i));
+      }
+    }
 
-    for (int i = 0; i < adapter.getCount(); i++) {
+    tabStrip.setSelectedTab(viewPager.getCurrentItem());
 
-      final View tabView = (tabProvider == null)
-          ? createDefaultTabView(adapter.getPageTitle(i))
-          : tabProvider.createTabView(tabStrip, i, adapter);
+    if (async) {
+      final SimpleTabProvider provider = (SimpleTabProvider) tabProvider;
+      asyncTabViewInflater.inflate(provider.tabViewLayoutId, tabStrip, adapter.getCount(),
+          new InternalTabViewInflaterCallback(provider, adapter));
+    } else {
+      dispatchTabsPopulated();
+    }
+  }
 
-      if (tabView == null) {
-        throw new IllegalStateException("tabView is null.");
-      }
+  /**
+   * The tab views of a plain {@link TabProvider} or of an overridden
+   * {@link #createDefaultTabView(CharSequence)} can not be recycled, so they are all created up
+   * front even with {@code stl_virtualTabs}.
+   */
+  private boolean isVirtualTabsEnabled() {
+    if (!tabStrip.isVirtualTabs()) {
+      return false;
+    }
+    return (tabProvider == null)
+        ? !isDefaultTabViewOverridden()
+        : tabProvider instanceof RecyclableTabProvider;
+  }
 
-      if (distributeEvenly) {
-        LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) tabView.getLayoutParams();
-        lp.width = 0;
-        lp.weight = 1;
-      }
+  private boolean isDrawingDefaultTabs() {
+    return drawDefaultTabs && tabProvider == null && !isDefaultTabViewOverridden();
+  }
 
-      if (internalTabClickListener != null) {
-        tabView.setOnClickListener(internalTabClickListener);
+  /**
+   * The default tabs can be drawn or measured without their views only if their views are created
+   * by this class.
+   */
+  private boolean isDefaultTabViewOverridden() {
+    if (defaultTabViewOverridden == null) {
+      boolean overridden = false;
+      for (Class<?> c = getClass(); c != SmartTabLayout.class && !overridden;
+          c = c.getSuperclass()) {
+        try {
+          c.getDeclaredMethod("createDefaultTabView", CharSequence.class);
+          overridden = true;
+        } catch (NoSuchMethodException ignored) {
+          // Not declared by this class
+        }
       }
+      defaultTabViewOverridden = overridden;
+    }
+    return defaultTabViewOverridden;
+  }
+
+  private TabTitleRenderer createTabTitleRenderer() {
+    return new TabTitleRenderer(tabViewTextColors, tabViewTextSize, Typeface.DEFAULT_BOLD,
+        tabViewTextAllCaps, tabViewTextHorizontalPadding, tabViewTextMinWidth,
+        getResources().getConfiguration().locale);
+  }
 
-      tabStrip.addView(tabView);
+  private boolean isCustomTabAsyncInflation() {
+    return customTabAsyncInflation
+        && !isVirtualTabsEnabled()
+        && tabProvider instanceof SimpleTabProvider
+        && ((SimpleTabProvider) tabProvider).tabViewLayoutId != NO_ID;
+  }
 
-      if (i == viewPager.getCurrentItem()) {
-        tabView.setSelected(true);
-      }
+  /**
+   * Remove all tabs. Their views are kept to be reused by the next {@link #populateTabStrip()}.
+   */
+  private void clearTabStrip() {
+    asyncTabViewInflater.cancel();
+    if (tabImpressions != null) {
+      tabImpressions.reset();
+    }
+    for (int i = 0; i < tabStrip.getChildCount(); i++) {
+      View tabView = tabStrip.getChildAt(i);
+      tabView.setSelected(false);
+      recycledTabViews.put(SmartTabStrip.getTabViewType(tabView), tabView);
+    }
+    tabStrip.clearTabs();
+  }
+
+  private void dispatchTabsPopulated() {
+    if (onTabsPopulatedListener != null) {
+      onTabsPopulatedListener.onTabsPopulated();
+    }
+  }
 
+  /**
+   * Update the tabs to the changed data set of the adapter. Tabs are matched by their titles: tabs
+   * that kept their title are moved to their new position and rebound, the tab views of removed
+   * tabs are rebound to inserted tabs, and only the rest are created. Tab views that can not be
+   * rebound, those of a {@link TabProvider} that is not a {@link RecyclableTabProvider}, are kept
+   * as they are when their title is unchanged.
+   */
+  private void updateTabStrip() {
+    final long startNanos = TabMetrics.beginSection(tabMetrics, "SmartTabLayout.updateTabStrip");
+    try {
+      updateTabStripInternal();
+    } finally {
+      TabMetrics.endSection(tabMetrics, TabMetrics.SECTION_POPULATE, startNanos);
     }
   }
 
-  private void scrollToTab(int tabIndex, float positionOffset) {
-    final int tabStripChildCount = tabStrip.getChildCount();
-    if (tabStripChildCount == 0 || tabIndex < 0 || tabIndex >= tabStripChildCount) {
+  private void updateTabStripInternal() {
+    if (asyncTabViewInflater.isRunning()) {
+      // Placeholder tabs must not be kept by their titles, so inflate all tabs again
+      clearTabStrip();
+      populateTabStrip();
       return;
     }
 
-    final boolean isLayoutRtl = Utils.isLayoutRtl(this);
-    View selectedTab = tabStrip.getChildAt(tabIndex);
-    int widthPlusMargin = Utils.getWidth(selectedTab) + Utils.getMarginHorizontally(selectedTab);
-    int extraOffset = (int) (positionOffset * widthPlusMargin);
+    final PagerAdapter adapter = viewPager.getAdapter();
+    final CharSequence[] oldTitles = tabTitles;
+    final CharSequence[] newTitles = getPageTitles(adapter);
+    final int currentItem = viewPager.getCurrentItem();
+    tabTitles = newTitles;
+
+    if (tabStrip.isDrawnTabs()) {
+      tabStrip.setDrawnTabTitles(newTitles);
+      tabStrip.setSelectedTab(currentItem);
+      dispatchTabsPopulated();
+      return;
+    }
 
-    if (tabStrip.isIndicatorAlwaysInCenter()) {
+    if (tabStrip.isMaterializingTabs()) {
+      tabStrip.setVirtualTabCount(newTitles.length);
+      tabStrip.setSelectedTab(currentItem);
+      dispatchTabsPopulated();
+      return;
+    }
 
-      if (0f < positionOffset && positionOffset < 1f) {
-        View nextTab = tabStrip.getChildAt(tabIndex + 1);
-        int selectHalfWidth = Utils.getWidth(selectedTab) / 2 + Utils.getMarginEnd(selectedTab);
-        int nextHalfWidth = Utils.getWidth(nextTab) / 2 + Utils.getMarginStart(nextTab);
-        extraOffset = Math.round(positionOffset * (selectHalfWidth + nextHalfWidth));
+    final View[] oldTabViews = new View[oldTitles.length];
+    for (int i = 0; i < oldTitles.length; i++) {
+      oldTabViews[i] = tabStrip.getTabView(i);
+    }
+
+    // Keep the tabs whose title is unchanged at the same position
+    final View[] newTabViews = new View[newTitles.length];
+    for (int i = 0, size = Math.min(oldTitles.length, newTitles.length); i < size; i++) {
+      if (TextUtils.equals(oldTitles[i], newTitles[i])) {
+        newTabViews[i] = oldTabViews[i];
+        oldTabViews[i] = null;
       }
+    }
 
-      View firstTab = tabStrip.getChildAt(0);
-      int x;
-      if (isLayoutRtl) {
-        int first = Utils.getWidth(firstTab) + Utils.getMarginEnd(firstTab);
-        int selected = Utils.getWidth(selectedTab) + Utils.getMarginEnd(selectedTab);
-        x = Utils.getEnd(selectedTab) - Utils.getMarginEnd(selectedTab) - extraOffset;
-        x -= (first - selected) / 2;
-      } else {
-        int first = Utils.getWidth(firstTab) + Utils.getMarginStart(firstTab);
-        int selected = Utils.getWidth(selectedTab) + Utils.getMarginStart(selectedTab);
-        x = Utils.getStart(selectedTab) - Utils.getMarginStart(selectedTab) + extraOffset;
-        x -= (first - selected) / 2;
+    // Move the tabs whose title has been found at another position
+    final Map<String, List<View>> movedTabViews = new HashMap<>();
+    for (int i = 0; i < oldTitles.length; i++) {
+      if (oldTabViews[i] != null) {
+        String key = String.valueOf(oldTitles[i]);
+        List<View> tabViews = movedTabViews.get(key);
+        if (tabViews == null) {
+          tabViews = new ArrayList<>();
+          movedTabViews.put(key, tabViews);
+        }
+        tabViews.add(oldTabViews[i]);
+      }
+    }
+    for (int i = 0; i < newTitles.length; i++) {
+      if (newTabViews[i] == null) {
+        List<View> tabViews = movedTabViews.get(String.valueOf(newTitles[i]));
+        if (tabViews != null && !tabViews.isEmpty()) {
+          newTabViews[i] = tabViews.remove(0);
+          SmartTabStrip.setTabPosition(newTabViews[i], i);
+        }
       }
+    }
 
-      scrollTo(x, 0);
-      return;
+    // Rebind the kept tab views, since anything other than the title may have changed. Tab views
+    // that can not be rebound are kept as they are, unless a recyclable tab changed its view type
+    for (int i = 0; i < newTitles.length; i++) {
+      if (newTabViews[i] != null) {
+        int oldViewType = SmartTabStrip.getTabViewType(newTabViews[i]);
+        if (oldViewType == TabViewPool.NO_TYPE) {
+          continue;
+        }
+        if (oldViewType == internalTabViewFactory.getTabViewType(i)) {
+          internalTabViewFactory.bindTabView(newTabViews[i], i);
+        } else {
+          newTabViews[i] = createTabView(adapter, i);
+        }
+      }
+    }
 
+    // Rebind the tab views of removed tabs to inserted tabs, or create them
+    final TabViewPool removedTabViews = new TabViewPool(Integer.MAX_VALUE);
+    for (List<View> tabViews : movedTabViews.values()) {
+      for (View tabView : tabViews) {
+        removedTabViews.put(SmartTabStrip.getTabViewType(tabView), tabView);
+      }
+    }
+    for (int i = 0; i < newTitles.length; i++) {
+      if (newTabViews[i] == null) {
+        View tabView = removedTabViews.get(internalTabViewFactory.getTabViewType(i));
+        if (tabView != null) {
+          internalTabViewFactory.bindTabView(tabView, i);
+        } else {
+          tabView = createTabView(adapter, i);
+        }
+        newTabViews[i] = tabView;
+      }
     }
 
-    int x;
-    if (titleOffset == TITLE_OFFSET_AUTO_CENTER) {
+    tabStrip.setTabViews(newTabViews, currentItem);
+    dispatchTabsPopulated();
+  }
 
-      if (0f < positionOffset && positionOffset < 1f) {
-        View nextTab = tabStrip.getChildAt(tabIndex + 1);
-        int selectHalfWidth = Utils.getWidth(selectedTab) / 2 + Utils.getMarginEnd(selectedTab);
-        int nextHalfWidth = Utils.getWidth(nextTab) / 2 + Utils.getMarginStart(nextTab);
-        extraOffset = Math.round(positionOffset * (selectHalfWidth + nextHalfWidth));
-      }
+  private static CharSequence[] getPageTitles(PagerAdapter adapter) {
+    final CharSequence[] titles = new CharSequence[adapter.getCount()];
+    for (int i = 0; i < titles.length; i++) {
+      titles[i] = adapter.getPageTitle(i);
+    }
+    return titles;
+  }
 
-      if (isLayoutRtl) {
-        x = -Utils.getWidthWithMargin(selectedTab) / 2 + getWidth() / 2;
-        x -= Utils.getPaddingStart(this);
-      } else {
-        x = Utils.getWidthWithMargin(selectedTab) / 2 - getWidth() / 2;
-        x += Utils.getPaddingStart(this);
-      }
+  private View createTabView(PagerAdapter adapter, int position) {
+    final int viewType = internalTabViewFactory.getTabViewType(position);
+    final View recycledTabView = recycledTabViews.get(viewType);
+    if (recycledTabView != null) {
+      internalTabViewFactory.bindTabView(recycledTabView, position);
+      return recycledTabView;
+    }
 
+    final View tabView;
+    if (tabProvider == null) {
+      Tracing.beginSection("SmartTabLayout.createDefaultTabView");
+      try {
+        tabView = createDefaultTabView(adapter.getPageTitle(position));
+      } finally {
+        Tracing.endSection();
+      }
     } else {
-
-      if (isLayoutRtl) {
-        x = (tabIndex > 0 || positionOffset > 0) ? titleOffset : 0;
-      } else {
-        x = (tabIndex > 0 || positionOffset > 0) ? -titleOffset : 0;
+      Tracing.beginSection("SmartTabLayout.TabProvider.createTabView");
+      try {
+        tabView = tabProvider.createTabView(tabStrip, position, adapter);
+      } finally {
+        Tracing.endSection();
       }
+    }
 
+    if (tabView == null) {
+      throw new IllegalStateException("tabView is null.");
     }
 
-    int start = Utils.getStart(selectedTab);
-    int startMargin = Utils.getMarginStart(selectedTab);
-    if (isLayoutRtl) {
-      x += start + startMargin - extraOffset - getWidth() + Utils.getPaddingHorizontally(this);
-    } else {
-      x += start - startMargin + extraOffset;
+    if (tabMetrics != null) {
+      tabMetrics.onTabViewCreated();
+    }
+
+    setupTabView(tabView, position, viewType);
+    return tabView;
+  }
+
+  private void setupTabView(View tabView, int position, int viewType) {
+    if (distributeEvenly) {
+      LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) tabView.getLayoutParams();
+      lp.width = 0;
+      lp.weight = 1;
+    }
+
+    if (internalTabClickListener != null) {
+      tabView.setOnClickListener(internalTabClickListener);
+    }
+
+    SmartTabStrip.setTabPosition(tabView, position);
+    SmartTabStrip.setTabViewType(tabView, viewType);
+  }
+
+  /**
+   * Move the indicator and scroll to the tab on the next animation frame, so that the strip is
+   * invalidated and scrolled at most once per frame.
+   */
+  private void onViewPagerPageChanged(int position, float positionOffset) {
+    internalScrollToTabRunnable.schedule(position, positionOffset);
+  }
+
+  private void applyScrollToTab(int tabIndex, float positionOffset) {
+    final long startNanos = TabMetrics.beginSection(tabMetrics, "SmartTabLayout.scrollToTab");
+    try {
+      scrollToTabInternal(tabIndex, positionOffset);
+    } finally {
+      TabMetrics.endSection(tabMetrics, TabMetrics.SECTION_SCROLL_TO_TAB, startNanos);
+    }
+  }
+
+  private void scrollToTabInternal(int tabIndex, float positionOffset) {
+    if (isTabIndexValid(tabIndex)) {
+      scrollTo(getTabScrollX(tabIndex, positionOffset), 0);
     }
+  }
 
-    scrollTo(x, 0);
+  private boolean isTabIndexValid(int tabIndex) {
+    return tabIndex >= 0 && tabIndex < tabStrip.getTabGeometry().getCount();
+  }
 
+  private int getTabScrollX(int tabIndex, float positionOffset) {
+    return TabScroller.getScrollX(tabStrip.getTabGeometry(), tabIndex, positionOffset,
+        tabStrip.isIndicatorAlwaysInCenter(), titleOffset, getWidth(),
+        Utils.getPaddingStart(this), Utils.getPaddingHorizontally(this));
   }
 
   /**
    * Allows complete control over the colors drawn in the tab layout. Set with
    * {@link #setCustomTabColorizer(TabColorizer)}.
+   * <p>
+   * The colors of all tabs are queried when the colorizer is set and after each layout, and are
+   * cached in between. Set the colorizer again to apply changed colors immediately.
    */
   public interface TabColorizer {
 
@@ -537,6 +1099,46 @@ public class SmartTabLayout extends HorizontalScrollView {
     void onTabClicked(int position);
   }
 
+  /**
+   * Interface definition for a callback to be invoked when the tabs have been populated.
+   */
+  public interface OnTabsPopulatedListener {
+
+    /**
+     * Called when the tab views of all pages have been created, including the custom tab views
+     * inflated asynchronously with {@link #setCustomTabAsyncInflation(boolean)}.
+     */
+    void onTabsPopulated();
+  }
+
+  /**
+   * Interface definition for a callback to be invoked with the metrics of each frame.
+   */
+  public interface OnTabMetricsListener {
+
+    /**
+     * Called on the frame after this layout has done some work.
+     *
+     * @param metrics the metrics of the previous frame. The instance is reused for every frame.
+     */
+    void onTabMetrics(TabMetrics metrics);
+  }
+
+  /**
+   * Interface definition for a callback to be invoked when tabs become visible or hidden.
+   */
+  public interface OnTabImpressionListener {
+
+    /**
+     * Called on the frame after the visible tabs have changed. After the tabs are populated again,
+     * all visible tabs are reported as entered.
+     *
+     * @param impressions the tabs that became visible or hidden. The instance is reused for every
+     * call.
+     */
+    void onTabImpressions(TabImpressions impressions);
+  }
+
   /**
    * Create the custom tabs in the tab layout. Set with
    * {@link #setCustomTabView(com.ogaclejapan.smarttablayout.SmartTabLayout.TabProvider)}
@@ -550,7 +1152,28 @@ public class SmartTabLayout extends HorizontalScrollView {
 
   }
 
-  private static class SimpleTabProvider implements TabProvider {
+  /**
+   * A {@link TabProvider} whose tab views can be recycled by binding them to another position.
+   * Used by {@code stl_virtualTabs} to reuse the tab views scrolled out of the viewport. With a
+   * plain {@link TabProvider}, {@code stl_virtualTabs} is ignored and all tab views are created.
+   */
+  public interface RecyclableTabProvider extends TabProvider {
+
+    /**
+     * @return Return the view type of {@code position}. Tab views of the same type are
+     * interchangeable. The type must be zero or positive.
+     */
+    int getTabViewType(int position);
+
+    /**
+     * Bind the data of {@code position} into a tab view previously returned by
+     * {@link #createTabView(ViewGroup, int, PagerAdapter)}.
+     */
+    void bindTabView(View tabView, int position, PagerAdapter adapter);
+
+  }
+
+  private static class SimpleTabProvider implements RecyclableTabProvider {
 
     private final LayoutInflater inflater;
     private final int tabViewLayoutId;
@@ -565,13 +1188,28 @@ public class SmartTabLayout extends HorizontalScrollView {
     @Override
     public View createTabView(ViewGroup container, int position, PagerAdapter adapter) {
       View tabView = null;
-      TextView tabTitleView = null;
 
       if (tabViewLayoutId != NO_ID) {
         tabView = inflater.inflate(tabViewLayoutId, container, false);
       }
 
-      if (tabViewTextViewId != NO_ID && tabView != null) {
+      if (tabView != null) {
+        bindTabView(tabView, position, adapter);
+      }
+
+      return tabView;
+    }
+
+    @Override
+    public int getTabViewType(int position) {
+      return 0;
+    }
+
+    @Override
+    public void bindTabView(View tabView, int position, PagerAdapter adapter) {
+      TextView tabTitleView = null;
+
+      if (tabViewTextViewId != NO_ID) {
         tabTitleView = (TextView) tabView.findViewById(tabViewTextViewId);
       }
 
@@ -582,26 +1220,26 @@ public class SmartTabLayout extends HorizontalScrollView {
       if (tabTitleView != null) {
         tabTitleView.setText(adapter.getPageTitle(position));
       }
-
-      return tabView;
     }
 
   }
 
-  private class InternalViewPagerListener implements ViewPager.OnPageChangeListener {
+  private class InternalViewPagerListener implements ViewPager.OnPageChangeListener,
+      ViewPager.OnAdapterChangeListener {
 
     private int scrollState;
 
     @Override
     public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
-      int tabStripChildCount = tabStrip.getChildCount();
-      if ((tabStripChildCount == 0) || (position < 0) || (position >= tabStripChildCount)) {
+      int tabCount = tabStrip.getTabCount();
+      if ((tabCount == 0) || (position < 0) || (position >= tabCount)) {
         return;
       }
 
-      tabStrip.onViewPagerPageChanged(position, positionOffset);
-
-      scrollToTab(position, positionOffset);
+      // The pages passed by a jump are skipped
+      if (!internalJumpAnimator.isJumping()) {
+        onViewPagerPageChanged(position, positionOffset);
+      }
 
       if (viewPagerPageChangeListener != null) {
         viewPagerPageChangeListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
@@ -612,6 +1250,12 @@ public class SmartTabLayout extends HorizontalScrollView {
     public void onPageScrollStateChanged(int state) {
       scrollState = state;
 
+      if (state == ViewPager.SCROLL_STATE_DRAGGING) {
+        internalJumpAnimator.cancel();
+      } else if (state == ViewPager.SCROLL_STATE_IDLE) {
+        internalJumpAnimator.onPagerIdle();
+      }
+
       if (viewPagerPageChangeListener != null) {
         viewPagerPageChangeListener.onPageScrollStateChanged(state);
       }
@@ -619,35 +1263,269 @@ public class SmartTabLayout extends HorizontalScrollView {
 
     @Override
     public void onPageSelected(int position) {
+      final int lastPosition = tabStrip.getSelectedTab();
       if (scrollState == ViewPager.SCROLL_STATE_IDLE) {
-        tabStrip.onViewPagerPageChanged(position, 0f);
-        scrollToTab(position, 0);
+        internalJumpAnimator.cancel();
+        onViewPagerPageChanged(position, 0f);
+      } else if (jumpAnimation && scrollState == ViewPager.SCROLL_STATE_SETTLING
+          && isTabIndexValid(lastPosition) && isTabIndexValid(position)
+          && Math.abs(position - lastPosition) > 1) {
+        internalJumpAnimator.start(lastPosition, position);
       }
 
-      for (int i = 0, size = tabStrip.getChildCount(); i < size; i++) {
-        tabStrip.getChildAt(i).setSelected(position == i);
-      }
+      tabStrip.setSelectedTab(position);
 
       if (viewPagerPageChangeListener != null) {
         viewPagerPageChangeListener.onPageSelected(position);
       }
     }
 
+    @Override
+    public void onAdapterChanged(@NonNull ViewPager viewPager, @Nullable PagerAdapter oldAdapter,
+        @Nullable PagerAdapter newAdapter) {
+      if (oldAdapter != null) {
+        oldAdapter.unregisterDataSetObserver(internalDataSetObserver);
+      }
+      clearTabStrip();
+      pagerAdapter = newAdapter;
+      if (newAdapter != null) {
+        newAdapter.registerDataSetObserver(internalDataSetObserver);
+        populateTabStrip();
+      }
+    }
+
+  }
+
+  private class InternalScrollToTabRunnable implements Runnable {
+
+    private int tabIndex;
+    private float positionOffset;
+    private boolean scheduled;
+
+    void schedule(int tabIndex, float positionOffset) {
+      this.tabIndex = tabIndex;
+      this.positionOffset = positionOffset;
+      if (!scheduled) {
+        scheduled = true;
+        ViewCompat.postOnAnimation(SmartTabLayout.this, this);
+      }
+    }
+
+    /**
+     * Apply the scheduled page change right away.
+     *
+     * @return false if no page change was scheduled
+     */
+    boolean runPending() {
+      if (!scheduled) {
+        return false;
+      }
+      removeCallbacks(this);
+      run();
+      return true;
+    }
+
+    @Override
+    public void run() {
+      scheduled = false;
+      tabStrip.onViewPagerPageChanged(tabIndex, positionOffset);
+      applyScrollToTab(tabIndex, positionOffset);
+    }
+
+  }
+
+  /**
+   * Animates the indicator and the scroll from a tab directly to a tab that is not adjacent. The
+   * page scrolls of the pager are ignored until both the animation and the pager have settled.
+   */
+  private class InternalJumpAnimator extends AnimatorListenerAdapter
+      implements ValueAnimator.AnimatorUpdateListener {
+
+    private final ValueAnimator animator;
+    private int fromPosition;
+    private int toPosition;
+    private int fromScrollX;
+    private boolean jumping;
+
+    InternalJumpAnimator() {
+      animator = ValueAnimator.ofFloat(0f, 1f);
+      animator.setDuration(JUMP_ANIMATION_DURATION);
+      animator.setInterpolator(new DecelerateInterpolator());
+      animator.addUpdateListener(this);
+      animator.addListener(this);
+    }
+
+    boolean isJumping() {
+      return jumping;
+    }
+
+    void start(int fromPosition, int toPosition) {
+      animator.cancel();
+      this.fromPosition = fromPosition;
+      this.toPosition = toPosition;
+      this.fromScrollX = getScrollX();
+      jumping = true;
+      animator.start();
+    }
+
+    void cancel() {
+      if (jumping) {
+        jumping = false;
+        animator.cancel();
+      }
+    }
+
+    void onPagerIdle() {
+      if (jumping && !animator.isRunning()) {
+        finish();
+      }
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+      if (!jumping) {
+        return;
+      }
+      final float fraction = (Float) animation.getAnimatedValue();
+      tabStrip.onViewPagerPageJumped(fromPosition, toPosition, fraction);
+      if (isTabIndexValid(toPosition)) {
+        final int toScrollX = getTabScrollX(toPosition, 0f);
+        scrollTo((int) (fromScrollX + (toScrollX - fromScrollX) * fraction), 0);
+      }
+    }
+
+    @Override
+    public void onAnimationEnd(Animator animation) {
+      if (jumping && internalViewPagerListener.scrollState == ViewPager.SCROLL_STATE_IDLE) {
+        finish();
+      }
+    }
+
+    private void finish() {
+      jumping = false;
+      onViewPagerPageChanged(viewPager.getCurrentItem(), 0f);
+    }
+
   }
 
-  private class InternalTabClickListener implements OnClickListener {
+  private class InternalTabClickListener implements OnClickListener, OnTabClickListener {
     @Override
     public void onClick(View v) {
-      for (int i = 0; i < tabStrip.getChildCount(); i++) {
-        if (v == tabStrip.getChildAt(i)) {
-          if (onTabClickListener != null) {
-            onTabClickListener.onTabClicked(i);
-          }
-          viewPager.setCurrentItem(i);
-          return;
+      final int position = tabStrip.getTabPosition(v);
+      if (position >= 0) {
+        onTabClicked(position);
+      }
+    }
+
+    @Override
+    public void onTabClicked(int position) {
+      final long startNanos = TabMetrics.beginSection(tabMetrics, "SmartTabLayout.onTabClick");
+      try {
+        if (onTabClickListener != null) {
+          onTabClickListener.onTabClicked(position);
+        }
+        viewPager.setCurrentItem(position);
+      } finally {
+        TabMetrics.endSection(tabMetrics, TabMetrics.SECTION_TAB_CLICK, startNanos);
+      }
+    }
+  }
+
+  private class InternalDataSetObserver extends DataSetObserver {
+
+    @Override
+    public void onChanged() {
+      if (viewPager != null && viewPager.getAdapter() == pagerAdapter) {
+        updateTabStrip();
+      }
+    }
+
+    @Override
+    public void onInvalidated() {
+      onChanged();
+    }
+
+  }
+
+  private class InternalTabViewInflaterCallback implements AsyncTabViewInflater.Callback {
+
+    private final SimpleTabProvider provider;
+    private final PagerAdapter adapter;
+
+    InternalTabViewInflaterCallback(SimpleTabProvider provider, PagerAdapter adapter) {
+      this.provider = provider;
+      this.adapter = adapter;
+    }
+
+    @Override
+    public void onTabViewsInflated(int start, View[] tabViews) {
+      for (int i = 0; i < tabViews.length; i++) {
+        final int position = start + i;
+        provider.bindTabView(tabViews[i], position, adapter);
+        if (tabMetrics != null) {
+          tabMetrics.onTabViewCreated();
         }
+        setupTabView(tabViews[i], position, provider.getTabViewType(position));
+        tabStrip.replaceTabView(position, tabViews[i]);
+      }
+    }
+
+    @Override
+    public void onComplete() {
+      dispatchTabsPopulated();
+    }
+
+  }
+
+  private class InternalTabViewFactory implements SmartTabStrip.TabViewFactory {
+
+    @Override
+    public int getTabViewType(int position) {
+      if (tabProvider == null) {
+        // An overridden createDefaultTabView may customize more than the title
+        return isDefaultTabViewOverridden() ? TabViewPool.NO_TYPE : 0;
+      }
+      if (tabProvider instanceof RecyclableTabProvider) {
+        return ((RecyclableTabProvider) tabProvider).getTabViewType(position);
+      }
+      return TabViewPool.NO_TYPE;
+    }
+
+    @Override
+    public View createTabView(ViewGroup container, int position) {
+      return SmartTabLayout.this.createTabView(viewPager.getAdapter(), position);
+    }
+
+    @Override
+    public int getTabWidth(int position) {
+      if (tabProvider != null || isDefaultTabViewOverridden()) {
+        return -1;
       }
+      final CharSequence title = viewPager.getAdapter().getPageTitle(position);
+      if (title != null && !(title instanceof String)) {
+        // Styled titles may not be measured with the plain text style
+        return -1;
+      }
+      if (tabTitleWidths == null) {
+        tabTitleWidths = new TabTitleWidths(
+            tabViewTextSize, Typeface.DEFAULT_BOLD, tabViewTextAllCaps);
+      }
+      int width = tabTitleWidths.getWidth((String) title, getResources().getConfiguration().locale)
+          + tabViewTextHorizontalPadding * 2;
+      return Math.max(width, tabViewTextMinWidth);
     }
+
+    @Override
+    public void bindTabView(View tabView, int position) {
+      final PagerAdapter adapter = viewPager.getAdapter();
+      if (tabProvider == null) {
+        ((TextView) tabView).setText(adapter.getPageTitle(position));
+      } else {
+        ((RecyclableTabProvider) tabProvider).bindTabView(tabView, position, adapter);
+      }
+      SmartTabStrip.setTabPosition(tabView, position);
+    }
+
   }
 
 }
@@ -21,12 +21,31 @@ import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.Build;
+import android.os.Bundle;
 import android.util.AttributeSet;
 import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityEvent;
 import android.widget.LinearLayout;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import androidx.core.view.MarginLayoutParamsCompat;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
 /**
  * <p>
  * Forked from Google Samples &gt; SlidingTabsBasic &gt;
@@ -52,9 +71,13 @@ class SmartTabStrip extends LinearLayout {
   private static final float DEFAULT_DIVIDER_HEIGHT = 0.5f;
   private static final boolean DEFAULT_INDICATOR_IN_CENTER = false;
   private static final boolean DEFAULT_INDICATOR_IN_FRONT = false;
+  private static final boolean DEFAULT_INDICATOR_OVERLAY = false;
   private static final boolean DEFAULT_INDICATOR_WITHOUT_PADDING = false;
   private static final int DEFAULT_INDICATOR_GRAVITY = GRAVITY_BOTTOM;
   private static final boolean DEFAULT_DRAW_DECORATION_AFTER_TAB = false;
+  private static final boolean DEFAULT_VIRTUAL_TABS = false;
+  private static final int DEFAULT_VIRTUAL_TABS_MARGIN_DIPS = 48;
+  private static final byte DRAWN_TAB_FOCUS_COLOR_ALPHA = 0x1F;
 
   private final int topBorderThickness;
   private final int topBorderColor;
@@ -62,6 +85,9 @@ class SmartTabStrip extends LinearLayout {
   private final int bottomBorderColor;
   private final Paint borderPaint;
   private final RectF indicatorRectF = new RectF();
+  private final Rect indicatorDirtyRect = new Rect();
+  private final Rect lastIndicatorRect = new Rect();
+  private final Rect clipBounds = new Rect();
   private final boolean indicatorWithoutPadding;
   private final boolean indicatorAlwaysInCenter;
   private final boolean indicatorInFront;
@@ -70,17 +96,42 @@ class SmartTabStrip extends LinearLayout {
   private final int indicatorGravity;
   private final float indicatorCornerRadius;
   private final Paint indicatorPaint;
+  private final IndicatorView indicatorView;
   private final int dividerThickness;
   private final Paint dividerPaint;
   private final float dividerHeight;
   private final SimpleTabColorizer defaultTabColorizer;
   private final boolean drawDecorationAfterTab;
+  private final boolean virtualTabs;
+  private final int virtualTabsMargin;
+  private final TabGeometry tabGeometry = new TabGeometry();
+  private final TabViewPool tabViewPool = new TabViewPool();
+  private final TabSeparators tabSeparators = new TabSeparators();
+  private final IndicatorColors indicatorColorCache = new IndicatorColors();
+  private final Paint drawnTabFocusPaint;
 
   private int lastPosition;
   private int selectedPosition;
   private float selectionOffset;
+  private int nextPosition = -1;
+  private int indicatorColor;
+  private TabMetrics tabMetrics;
   private SmartTabIndicationInterpolator indicationInterpolator;
   private SmartTabLayout.TabColorizer customTabColorizer;
+  private TabViewFactory tabViewFactory;
+  private int virtualTabCount;
+  private int firstTabViewPosition;
+  private int selectedTabPosition = -1;
+  private int tabHeightMeasureSpec;
+  private int virtualTabsMaxHeight;
+  private boolean virtualTabsMeasured;
+  private TabTitleRenderer tabTitleRenderer;
+  private SmartTabLayout.OnTabClickListener drawnTabClickListener;
+  private DrawnTabAccessibilityHelper drawnTabAccessibilityHelper;
+  private boolean drawnTabsDistributeEvenly;
+  private int pressedTabPosition = -1;
+  private int drawnWindowLeft;
+  private int drawnWindowRight;
 
   SmartTabStrip(Context context, AttributeSet attrs) {
     super(context);
@@ -94,6 +145,7 @@ class SmartTabStrip extends LinearLayout {
 
     boolean indicatorWithoutPadding = DEFAULT_INDICATOR_WITHOUT_PADDING;
     boolean indicatorInFront = DEFAULT_INDICATOR_IN_FRONT;
+    boolean indicatorOverlay = DEFAULT_INDICATOR_OVERLAY;
     boolean indicatorAlwaysInCenter = DEFAULT_INDICATOR_IN_CENTER;
     int indicationInterpolatorId = SmartTabIndicationInterpolator.ID_SMART;
     int indicatorGravity = DEFAULT_INDICATOR_GRAVITY;
@@ -110,6 +162,8 @@ class SmartTabStrip extends LinearLayout {
     int dividerColorsId = NO_ID;
     int dividerThickness = (int) (DEFAULT_DIVIDER_THICKNESS_DIPS * density);
     boolean drawDecorationAfterTab = DEFAULT_DRAW_DECORATION_AFTER_TAB;
+    boolean virtualTabs = DEFAULT_VIRTUAL_TABS;
+    int virtualTabsMargin = (int) (DEFAULT_VIRTUAL_TABS_MARGIN_DIPS * density);
 
     TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.stl_SmartTabLayout);
     indicatorAlwaysInCenter = a.getBoolean(
@@ -118,6 +172,8 @@ class SmartTabStrip extends LinearLayout {
         R.styleable.stl_SmartTabLayout_stl_indicatorWithoutPadding, indicatorWithoutPadding);
     indicatorInFront = a.getBoolean(
         R.styleable.stl_SmartTabLayout_stl_indicatorInFront, indicatorInFront);
+    indicatorOverlay = a.getBoolean(
+        R.styleable.stl_SmartTabLayout_stl_indicatorOverlay, indicatorOverlay);
     indicationInterpolatorId = a.getInt(
         R.styleable.stl_SmartTabLayout_stl_indicatorInterpolation, indicationInterpolatorId);
     indicatorGravity = a.getInt(
@@ -148,6 +204,10 @@ class SmartTabStrip extends LinearLayout {
         R.styleable.stl_SmartTabLayout_stl_dividerThickness, dividerThickness);
     drawDecorationAfterTab = a.getBoolean(
         R.styleable.stl_SmartTabLayout_stl_drawDecorationAfterTab, drawDecorationAfterTab);
+    virtualTabs = a.getBoolean(
+        R.styleable.stl_SmartTabLayout_stl_virtualTabs, virtualTabs);
+    virtualTabsMargin = a.getDimensionPixelSize(
+        R.styleable.stl_SmartTabLayout_stl_virtualTabsMargin, virtualTabsMargin);
     a.recycle();
 
     final int[] indicatorColors = (indicatorColorsId == NO_ID)
@@ -167,6 +227,9 @@ class SmartTabStrip extends LinearLayout {
     this.bottomBorderThickness = underlineThickness;
     this.bottomBorderColor = underlineColor;
     this.borderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    this.drawnTabFocusPaint = new Paint();
+    this.drawnTabFocusPaint.setColor(
+        setColorAlpha(themeForegroundColor, DRAWN_TAB_FOCUS_COLOR_ALPHA));
 
     this.indicatorAlwaysInCenter = indicatorAlwaysInCenter;
     this.indicatorWithoutPadding = indicatorWithoutPadding;
@@ -177,6 +240,14 @@ class SmartTabStrip extends LinearLayout {
     this.indicatorCornerRadius = indicatorCornerRadius;
     this.indicatorGravity = indicatorGravity;
 
+    if (indicatorOverlay && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+      // The overlay view has its own display list, so moving it does not redraw the strip
+      this.indicatorView = new IndicatorView(context, indicatorCornerRadius);
+      getOverlay().add(indicatorView);
+    } else {
+      this.indicatorView = null;
+    }
+
     this.dividerHeight = DEFAULT_DIVIDER_HEIGHT;
     this.dividerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
     this.dividerPaint.setStrokeWidth(dividerThickness);
@@ -184,6 +255,9 @@ class SmartTabStrip extends LinearLayout {
 
     this.drawDecorationAfterTab = drawDecorationAfterTab;
 
+    this.virtualTabs = virtualTabs;
+    this.virtualTabsMargin = virtualTabsMargin;
+
     this.indicationInterpolator = SmartTabIndicationInterpolator.of(indicationInterpolatorId);
   }
 
@@ -194,61 +268,770 @@ class SmartTabStrip extends LinearLayout {
     return Color.argb(alpha, Color.red(color), Color.green(color), Color.blue(color));
   }
 
-  /**
-   * Blend {@code color1} and {@code color2} using the given ratio.
-   *
-   * @param ratio of which to blend. 1.0 will return {@code color1}, 0.5 will give an even blend,
-   * 0.0 will return {@code color2}.
-   */
-  private static int blendColors(int color1, int color2, float ratio) {
-    final float inverseRation = 1f - ratio;
-    float r = (Color.red(color1) * ratio) + (Color.red(color2) * inverseRation);
-    float g = (Color.green(color1) * ratio) + (Color.green(color2) * inverseRation);
-    float b = (Color.blue(color1) * ratio) + (Color.blue(color2) * inverseRation);
-    return Color.rgb((int) r, (int) g, (int) b);
-  }
-
   void setIndicationInterpolator(SmartTabIndicationInterpolator interpolator) {
     indicationInterpolator = interpolator;
-    invalidate();
+    invalidateDecoration();
   }
 
   void setCustomTabColorizer(SmartTabLayout.TabColorizer customTabColorizer) {
     this.customTabColorizer = customTabColorizer;
-    invalidate();
+    invalidateDecoration();
   }
 
   void setSelectedIndicatorColors(int... colors) {
     // Make sure that the custom colorizer is removed
     customTabColorizer = null;
     defaultTabColorizer.setIndicatorColors(colors);
-    invalidate();
+    invalidateDecoration();
   }
 
   void setDividerColors(int... colors) {
     // Make sure that the custom colorizer is removed
     customTabColorizer = null;
     defaultTabColorizer.setDividerColors(colors);
+    invalidateDecoration();
+  }
+
+  void setTabMetrics(TabMetrics tabMetrics) {
+    this.tabMetrics = tabMetrics;
+  }
+
+  private void invalidateDecoration() {
+    if (tabMetrics != null) {
+      tabMetrics.onInvalidate();
+    }
+    tabSeparators.invalidate();
+    indicatorColorCache.invalidate();
     invalidate();
+    if (indicatorView != null) {
+      updateIndicatorView();
+    }
   }
 
+  /**
+   * Called on every frame while the pager is scrolled. This and the drawing of the decoration
+   * must not allocate objects.
+   */
   void onViewPagerPageChanged(int position, float positionOffset) {
     selectedPosition = position;
     selectionOffset = positionOffset;
+    nextPosition = -1;
     if (positionOffset == 0f && lastPosition != selectedPosition) {
       lastPosition = selectedPosition;
     }
-    invalidate();
+    invalidateIndicator();
+  }
+
+  /**
+   * Move the indicator directly between two tabs that are not adjacent, skipping the tabs in
+   * between.
+   *
+   * @param fraction the progress from {@code fromPosition} to {@code toPosition}, from 0 to 1
+   */
+  void onViewPagerPageJumped(int fromPosition, int toPosition, float fraction) {
+    // Like the pager, always interpolate from the tab on the start side
+    if (fromPosition <= toPosition) {
+      selectedPosition = fromPosition;
+      nextPosition = toPosition;
+      selectionOffset = fraction;
+    } else {
+      selectedPosition = toPosition;
+      nextPosition = fromPosition;
+      selectionOffset = 1f - fraction;
+    }
+    invalidateIndicator();
+  }
+
+  /**
+   * Invalidate the union of the last drawn and the new bounds of the indicator, since nothing else
+   * in the strip changes while the pager is scrolled.
+   */
+  private void invalidateIndicator() {
+    if (tabMetrics != null) {
+      tabMetrics.onInvalidate();
+    }
+    if (indicatorView != null) {
+      updateIndicatorView();
+      return;
+    }
+    if (!updateIndicator()) {
+      invalidate();
+      return;
+    }
+    indicatorRectF.roundOut(indicatorDirtyRect);
+    indicatorDirtyRect.union(lastIndicatorRect);
+    invalidate(indicatorDirtyRect);
+  }
+
+  /**
+   * Move the overlay indicator to the bounds of the current selection. The strip itself is not
+   * invalidated.
+   */
+  private void updateIndicatorView() {
+    if (updateIndicator()) {
+      indicatorView.setVisibility(VISIBLE);
+      indicatorView.setIndicator(indicatorRectF, indicatorColor);
+    } else {
+      indicatorView.setVisibility(INVISIBLE);
+    }
   }
 
   boolean isIndicatorAlwaysInCenter() {
     return indicatorAlwaysInCenter;
   }
 
+  boolean isVirtualTabs() {
+    return virtualTabs;
+  }
+
+  /**
+   * Switch to the virtual mode, which only materializes the tab views intersecting the viewport
+   * of the parent {@link android.widget.HorizontalScrollView} plus the virtual tabs margin.
+   *
+   * @param tabCount number of the tabs
+   * @param factory {@link TabViewFactory} to create or bind the tab view of a position
+   */
+  void setVirtualTabs(int tabCount, TabViewFactory factory) {
+    clearTabs();
+    virtualTabCount = tabCount;
+    tabViewFactory = factory;
+    requestLayout();
+  }
+
+  /**
+   * Change the number of the tabs in the virtual mode. The materialized tab views are recycled and
+   * every tab is measured again on the next layout.
+   */
+  void setVirtualTabCount(int tabCount) {
+    while (getChildCount() > 0) {
+      recycleTabView(getChildCount() - 1);
+    }
+    firstTabViewPosition = 0;
+    virtualTabCount = tabCount;
+    virtualTabsMeasured = false;
+    requestLayout();
+    invalidate();
+  }
+
+  boolean isDrawnTabs() {
+    return tabTitleRenderer != null;
+  }
+
+  /**
+   * @return true if the tab views are materialized by a {@link TabViewFactory} in the virtual mode
+   */
+  boolean isMaterializingTabs() {
+    return tabViewFactory != null;
+  }
+
+  /**
+   * Switch to the drawn mode, which has no tab views. The titles are drawn by {@code renderer}
+   * and the touches and the accessibility of the tabs are handled by the strip itself.
+   *
+   * @param renderer {@link TabTitleRenderer} to measure and draw the titles
+   * @param listener listener of the tab clicks, or null if the tabs are not clickable
+   * @param distributeEvenly true to give each tab the same width
+   */
+  void setDrawnTabs(TabTitleRenderer renderer, SmartTabLayout.OnTabClickListener listener,
+      boolean distributeEvenly) {
+    clearTabs();
+    tabTitleRenderer = renderer;
+    drawnTabClickListener = listener;
+    drawnTabsDistributeEvenly = distributeEvenly;
+    drawnTabAccessibilityHelper = new DrawnTabAccessibilityHelper();
+    ViewCompat.setAccessibilityDelegate(this, drawnTabAccessibilityHelper);
+    // The tabs are selected with a keyboard through the virtual views of the helper
+    setFocusable(listener != null);
+    requestLayout();
+    invalidate();
+  }
+
+  /**
+   * Change the titles of the tabs in the drawn mode.
+   */
+  void setDrawnTabTitles(CharSequence[] titles) {
+    tabTitleRenderer.setTitles(titles);
+    pressedTabPosition = -1;
+    drawnTabAccessibilityHelper.invalidateRoot();
+    requestLayout();
+    invalidate();
+  }
+
+  /**
+   * Replace the tab views with {@code tabViews} in order. Tab views that remain in the strip are
+   * moved without being detached from the window, the others are removed and new ones are added.
+   *
+   * @param tabViews the tab views for each position
+   * @param selectedPosition the position of the selected tab
+   */
+  void setTabViews(View[] tabViews, int selectedPosition) {
+    final Set<View> retained = Collections.newSetFromMap(new IdentityHashMap<View, Boolean>());
+    Collections.addAll(retained, tabViews);
+
+    final Set<View> children = Collections.newSetFromMap(new IdentityHashMap<View, Boolean>());
+    for (int i = getChildCount() - 1; i >= 0; i--) {
+      View child = getChildAt(i);
+      if (retained.contains(child)) {
+        children.add(child);
+      } else {
+        removeViewInLayout(child);
+      }
+    }
+
+    detachAllViewsFromParent();
+    for (int i = 0; i < tabViews.length; i++) {
+      View tabView = tabViews[i];
+      ViewGroup.LayoutParams lp = tabView.getLayoutParams();
+      if (lp == null) {
+        lp = generateDefaultLayoutParams();
+      }
+      if (children.contains(tabView)) {
+        attachViewToParent(tabView, i, lp);
+      } else {
+        addViewInLayout(tabView, i, lp, true);
+      }
+      tabView.setSelected(i == selectedPosition);
+    }
+    selectedTabPosition = selectedPosition;
+
+    requestLayout();
+    invalidate();
+  }
+
+  /**
+   * Replace the tab view of {@code position} with {@code tabView}. The layout is requested only
+   * once for the replacements made in the same frame.
+   */
+  void replaceTabView(int position, View tabView) {
+    final int index = position - firstTabViewPosition;
+    if (index < 0 || index >= getChildCount()) {
+      return;
+    }
+    ViewGroup.LayoutParams lp = tabView.getLayoutParams();
+    if (lp == null) {
+      lp = generateDefaultLayoutParams();
+    }
+    removeViewInLayout(getChildAt(index));
+    addViewInLayout(tabView, index, lp, true);
+    tabView.setSelected(position == selectedTabPosition);
+
+    requestLayout();
+    invalidate();
+  }
+
+  void clearTabs() {
+    removeAllViews();
+    tabViewPool.clear();
+    tabGeometry.setCount(0);
+    tabViewFactory = null;
+    virtualTabCount = 0;
+    firstTabViewPosition = 0;
+    selectedTabPosition = -1;
+    virtualTabsMeasured = false;
+    if (tabTitleRenderer != null) {
+      ViewCompat.setAccessibilityDelegate(this, null);
+      setFocusable(false);
+      tabTitleRenderer = null;
+      drawnTabClickListener = null;
+      drawnTabAccessibilityHelper = null;
+      pressedTabPosition = -1;
+    }
+  }
+
+  /**
+   * Move the selected state to the tab of {@code position}. Only the previously selected tab and
+   * the newly selected tab are updated.
+   */
+  void setSelectedTab(int position) {
+    if (position == selectedTabPosition) {
+      return;
+    }
+    if (tabTitleRenderer != null) {
+      invalidateDrawnTab(selectedTabPosition);
+      invalidateDrawnTab(position);
+      selectedTabPosition = position;
+      return;
+    }
+    final View lastSelectedTab = getTabView(selectedTabPosition);
+    if (lastSelectedTab != null) {
+      lastSelectedTab.setSelected(false);
+    }
+    final View selectedTab = getTabView(position);
+    if (selectedTab != null) {
+      selectedTab.setSelected(true);
+    }
+    selectedTabPosition = position;
+  }
+
+  int getSelectedTab() {
+    return selectedTabPosition;
+  }
+
+  int getTabCount() {
+    if (tabTitleRenderer != null) {
+      return tabTitleRenderer.getCount();
+    }
+    return (tabViewFactory != null) ? virtualTabCount : getChildCount();
+  }
+
+  /**
+   * @return the tab view of {@code position} or null if it does not exist or is not materialized
+   */
+  View getTabView(int position) {
+    final int index = position - firstTabViewPosition;
+    return (index >= 0 && index < getChildCount()) ? getChildAt(index) : null;
+  }
+
+  /**
+   * @return the position of {@code tabView} or -1 if it is not a tab of this strip
+   */
+  int getTabPosition(View tabView) {
+    final Object position = tabView.getTag(R.id.stl_tab_position);
+    return (position != null && tabView.getParent() == this) ? (Integer) position : -1;
+  }
+
+  /**
+   * Stamp the position on {@code tabView} so that it can be resolved in constant time.
+   */
+  static void setTabPosition(View tabView, int position) {
+    tabView.setTag(R.id.stl_tab_position, position);
+  }
+
+  /**
+   * @return the view type stamped on {@code tabView} or {@link TabViewPool#NO_TYPE}
+   */
+  static int getTabViewType(View tabView) {
+    final Object viewType = tabView.getTag(R.id.stl_tab_view_type);
+    return (viewType != null) ? (Integer) viewType : TabViewPool.NO_TYPE;
+  }
+
+  /**
+   * Stamp the view type on {@code tabView}, so that it can be recycled after the data of its
+   * position has been changed.
+   */
+  static void setTabViewType(View tabView, int viewType) {
+    tabView.setTag(R.id.stl_tab_view_type, viewType);
+  }
+
+  int getTabMeasuredWidth(int position) {
+    return (tabViewFactory != null || tabTitleRenderer != null)
+        ? tabGeometry.getWidth(position)
+        : Utils.getMeasuredWidth(getTabView(position));
+  }
+
+  int getTabMarginStart(int position) {
+    return (tabViewFactory != null || tabTitleRenderer != null)
+        ? tabGeometry.getMarginStart(position)
+        : Utils.getMarginStart(getTabView(position));
+  }
+
+  int getTabMarginEnd(int position) {
+    return (tabViewFactory != null || tabTitleRenderer != null)
+        ? tabGeometry.getMarginEnd(position)
+        : Utils.getMarginEnd(getTabView(position));
+  }
+
+  TabGeometry getTabGeometry() {
+    return tabGeometry;
+  }
+
+  /**
+   * Update the materialized tab views to match the current scroll position of the parent.
+   */
+  void onParentScrollChanged() {
+    if (tabViewFactory != null && virtualTabsMeasured) {
+      updateTabViews();
+    }
+    if (tabTitleRenderer != null) {
+      // The titles are drawn around the viewport, so redraw only once it leaves the drawn area
+      final View parent = (View) getParent();
+      final int windowLeft = parent.getScrollX() - getLeft();
+      final int windowRight = windowLeft + parent.getWidth();
+      if (windowLeft < drawnWindowLeft || windowRight > drawnWindowRight) {
+        invalidate();
+      }
+    }
+  }
+
   SmartTabLayout.TabColorizer getTabColorizer() {
     return (customTabColorizer != null) ? customTabColorizer : defaultTabColorizer;
   }
 
+  @Override
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    if (tabTitleRenderer != null) {
+      measureDrawnTabs(widthMeasureSpec, heightMeasureSpec);
+      return;
+    }
+    if (tabViewFactory == null) {
+      measureTabs(widthMeasureSpec, heightMeasureSpec);
+      return;
+    }
+
+    final int verticalPadding = getPaddingTop() + getPaddingBottom();
+    if (!virtualTabsMeasured || tabHeightMeasureSpec != heightMeasureSpec) {
+      measureVirtualTabs(heightMeasureSpec);
+      tabHeightMeasureSpec = heightMeasureSpec;
+      virtualTabsMeasured = true;
+    }
+
+    int maxHeight = 0;
+    for (int i = 0, size = getChildCount(); i < size; i++) {
+      View child = getChildAt(i);
+      LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      measureTabView(child, firstTabViewPosition + i, heightMeasureSpec);
+      maxHeight = Math.max(maxHeight, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+    }
+
+    int width = tabGeometry.getContentWidth() + getPaddingLeft() + getPaddingRight();
+    int height = Math.max(maxHeight, virtualTabsMaxHeight) + verticalPadding;
+    setMeasuredDimension(
+        resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+        resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+  }
+
+  @Override
+  protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    layoutTabGeometry(r - l);
+    for (int i = 0, size = getChildCount(); i < size; i++) {
+      View child = getChildAt(i);
+      if (child.getVisibility() != GONE) {
+        layoutTabView(child, firstTabViewPosition + i, b - t);
+      }
+    }
+    if (tabViewFactory != null) {
+      updateTabViews();
+    }
+
+    tabSeparators.invalidate();
+    indicatorColorCache.invalidate();
+    if (indicatorView != null) {
+      updateIndicatorView();
+    }
+  }
+
+  /**
+   * Measure the tabs and build the offset table in a single pass, in place of the measurement of
+   * {@link LinearLayout}. The tabs with a weight and no width share the remaining width of an
+   * exact measure spec, and are measured once with their share instead of being measured first
+   * with their content. Without an exact measure spec, they are measured with their content.
+   */
+  private void measureTabs(int widthMeasureSpec, int heightMeasureSpec) {
+    final int tabCount = getChildCount();
+    final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+    final int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+    final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+    final int verticalPadding = getPaddingTop() + getPaddingBottom();
+    final boolean shareWidth = (widthMode == MeasureSpec.EXACTLY);
+    final int unspecifiedWidthMeasureSpec =
+        MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+
+    tabGeometry.setCount(tabCount);
+
+    // Measure the tabs that do not share the width first, to know the width left to share
+    int usedWidth = horizontalPadding;
+    float totalWeight = 0f;
+    int maxHeight = 0;
+    boolean matchParentHeight = false;
+    for (int i = 0; i < tabCount; i++) {
+      View child = getChildAt(i);
+      if (child.getVisibility() == GONE) {
+        tabGeometry.setMeasurement(i, 0, 0, 0, 0, 0);
+        continue;
+      }
+      LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      usedWidth += lp.leftMargin + lp.rightMargin;
+      if (shareWidth && isSharingWidth(lp)) {
+        totalWeight += lp.weight;
+        continue;
+      }
+      int childWidthMeasureSpec = getChildMeasureSpec(unspecifiedWidthMeasureSpec, 0,
+          isSharingWidth(lp) ? LayoutParams.WRAP_CONTENT : lp.width);
+      measureTab(child, i, childWidthMeasureSpec, heightMeasureSpec);
+      usedWidth += child.getMeasuredWidth();
+      maxHeight = Math.max(maxHeight,
+          child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+      matchParentHeight |= (lp.height == LayoutParams.MATCH_PARENT);
+    }
+
+    if (totalWeight > 0f) {
+      int remainingWidth = Math.max(0, MeasureSpec.getSize(widthMeasureSpec) - usedWidth);
+      for (int i = 0; i < tabCount; i++) {
+        View child = getChildAt(i);
+        LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        if (child.getVisibility() == GONE || !isSharingWidth(lp)) {
+          continue;
+        }
+        // Give the rounding error to the last tabs so that the shares fill the width exactly
+        int share = (int) (remainingWidth * lp.weight / totalWeight);
+        remainingWidth -= share;
+        totalWeight -= lp.weight;
+        measureTab(child, i, MeasureSpec.makeMeasureSpec(share, MeasureSpec.EXACTLY),
+            heightMeasureSpec);
+        maxHeight = Math.max(maxHeight,
+            child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+        matchParentHeight |= (lp.height == LayoutParams.MATCH_PARENT);
+      }
+    }
+
+    tabGeometry.updateOffsets();
+
+    int width = tabGeometry.getContentWidth() + horizontalPadding;
+    int height = maxHeight + verticalPadding;
+    setMeasuredDimension(
+        resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+        resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+
+    if (matchParentHeight && heightMode != MeasureSpec.EXACTLY) {
+      // The height of the strip was unknown, so the tabs matching it have to be measured again
+      final int uniformHeightMeasureSpec = MeasureSpec.makeMeasureSpec(
+          getMeasuredHeight(), MeasureSpec.EXACTLY);
+      for (int i = 0; i < tabCount; i++) {
+        View child = getChildAt(i);
+        LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        if (child.getVisibility() != GONE && lp.height == LayoutParams.MATCH_PARENT) {
+          measureTab(child, i,
+              MeasureSpec.makeMeasureSpec(child.getMeasuredWidth(), MeasureSpec.EXACTLY),
+              uniformHeightMeasureSpec);
+        }
+      }
+    }
+  }
+
+  /**
+   * Measure the tabs of the drawn mode from the widths of their titles.
+   */
+  private void measureDrawnTabs(int widthMeasureSpec, int heightMeasureSpec) {
+    final TabTitleRenderer renderer = tabTitleRenderer;
+    final int tabCount = renderer.getCount();
+    final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+    final int padding = renderer.getHorizontalPadding();
+
+    tabGeometry.setCount(tabCount);
+    if (drawnTabsDistributeEvenly && tabCount > 0
+        && MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY) {
+      int remainingWidth = Math.max(0, MeasureSpec.getSize(widthMeasureSpec) - horizontalPadding);
+      for (int i = 0; i < tabCount; i++) {
+        int share = remainingWidth / (tabCount - i);
+        remainingWidth -= share;
+        tabGeometry.setMeasurement(i, share, 0, 0, padding, padding);
+      }
+    } else {
+      for (int i = 0; i < tabCount; i++) {
+        tabGeometry.setMeasurement(i, renderer.getTabWidth(i), 0, 0, padding, padding);
+      }
+    }
+    tabGeometry.updateOffsets();
+
+    int width = tabGeometry.getContentWidth() + horizontalPadding;
+    int height = renderer.getTextHeight() + getPaddingTop() + getPaddingBottom();
+    setMeasuredDimension(
+        resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+        resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+  }
+
+  private static boolean isSharingWidth(LayoutParams lp) {
+    return lp.width == 0 && lp.weight > 0f;
+  }
+
+  private void measureTab(View child, int position, int childWidthMeasureSpec,
+      int heightMeasureSpec) {
+    LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec,
+        getPaddingTop() + getPaddingBottom() + lp.topMargin + lp.bottomMargin, lp.height);
+    child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+    tabGeometry.setMeasurement(position, child.getMeasuredWidth(),
+        MarginLayoutParamsCompat.getMarginStart(lp), MarginLayoutParamsCompat.getMarginEnd(lp),
+        ViewCompat.getPaddingStart(child), ViewCompat.getPaddingEnd(child));
+  }
+
+  /**
+   * Measure every tab once with a recycled scrap view to build the offset table. Tabs whose width
+   * is known by the {@link TabViewFactory} reuse the margins, paddings and height of the first
+   * measured tab instead, once the width of that tab has been confirmed.
+   */
+  private void measureVirtualTabs(int heightMeasureSpec) {
+    final int tabCount = virtualTabCount;
+    final int widthMeasureSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+    int maxHeight = 0;
+    boolean knownWidths = false;
+    int marginStart = 0;
+    int marginEnd = 0;
+    int paddingStart = 0;
+    int paddingEnd = 0;
+    int heightWithMargin = 0;
+
+    tabGeometry.setCount(tabCount);
+    for (int i = 0; i < tabCount; i++) {
+      int knownWidth = tabViewFactory.getTabWidth(i);
+      if (knownWidths && knownWidth >= 0) {
+        tabGeometry.setMeasurement(i, knownWidth, marginStart, marginEnd, paddingStart, paddingEnd);
+        maxHeight = Math.max(maxHeight, heightWithMargin);
+        continue;
+      }
+
+      View tabView = getTabView(i);
+      boolean scrap = (tabView == null);
+      if (scrap) {
+        tabView = obtainTabView(i);
+      }
+
+      LayoutParams lp = (LayoutParams) tabView.getLayoutParams();
+      int childWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec, 0, lp.width);
+      int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec,
+          getPaddingTop() + getPaddingBottom() + lp.topMargin + lp.bottomMargin, lp.height);
+      tabView.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+
+      int width = tabView.getMeasuredWidth();
+      tabGeometry.setMeasurement(i, width,
+          MarginLayoutParamsCompat.getMarginStart(lp), MarginLayoutParamsCompat.getMarginEnd(lp),
+          ViewCompat.getPaddingStart(tabView), ViewCompat.getPaddingEnd(tabView));
+      maxHeight = Math.max(maxHeight, tabView.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+
+      if (!knownWidths && knownWidth == width) {
+        knownWidths = true;
+        marginStart = tabGeometry.getMarginStart(i);
+        marginEnd = tabGeometry.getMarginEnd(i);
+        paddingStart = ViewCompat.getPaddingStart(tabView);
+        paddingEnd = ViewCompat.getPaddingEnd(tabView);
+        heightWithMargin = tabView.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+      }
+
+      if (scrap) {
+        tabViewPool.put(getTabViewType(tabView), tabView);
+      }
+    }
+    tabGeometry.updateOffsets();
+    virtualTabsMaxHeight = maxHeight;
+  }
+
+  /**
+   * Position the tabs from the offset table, from the right in a right-to-left layout.
+   */
+  private void layoutTabGeometry(int width) {
+    final int tabCount = tabGeometry.getCount();
+    final boolean isLayoutRtl = Utils.isLayoutRtl(this);
+    tabGeometry.setLayoutRtl(isLayoutRtl);
+    for (int i = 0; i < tabCount; i++) {
+      int start = tabGeometry.getOffset(i) + tabGeometry.getMarginStart(i);
+      int left = (isLayoutRtl)
+          ? width - getPaddingRight() - start - tabGeometry.getWidth(i)
+          : getPaddingLeft() + start;
+      tabGeometry.setLeft(i, left);
+    }
+    tabGeometry.updateEdges();
+  }
+
+  /**
+   * Attach the tab views intersecting the viewport and recycle the others.
+   */
+  private void updateTabViews() {
+    final View parent = (View) getParent();
+    final int tabCount = tabGeometry.getCount();
+    if (parent == null || tabCount == 0) {
+      return;
+    }
+
+    final int windowLeft = parent.getScrollX() - getLeft() - virtualTabsMargin;
+    final int windowRight = parent.getScrollX() - getLeft() + parent.getWidth() + virtualTabsMargin;
+
+    // Tabs are laid out contiguously, so the visible positions always form a single range
+    final int first = tabGeometry.getFirstPositionIn(windowLeft - 1, windowRight + 1);
+    final int last = tabGeometry.getLastPositionIn(windowLeft - 1, windowRight + 1);
+
+    final int lastTabViewPosition = firstTabViewPosition + getChildCount() - 1;
+    if (first < 0 || first > lastTabViewPosition || last < firstTabViewPosition) {
+      while (getChildCount() > 0) {
+        recycleTabView(getChildCount() - 1);
+      }
+    } else {
+      while (firstTabViewPosition < first) {
+        recycleTabView(0);
+        firstTabViewPosition++;
+      }
+      for (int i = lastTabViewPosition; i > last; i--) {
+        recycleTabView(getChildCount() - 1);
+      }
+    }
+
+    if (first < 0) {
+      return;
+    }
+
+    if (getChildCount() == 0) {
+      firstTabViewPosition = first;
+      addTabView(first, 0);
+    }
+
+    while (firstTabViewPosition > first) {
+      addTabView(--firstTabViewPosition, 0);
+    }
+
+    for (int i = firstTabViewPosition + getChildCount(); i <= last; i++) {
+      addTabView(i, getChildCount());
+    }
+  }
+
+  private View obtainTabView(int position) {
+    View tabView = tabViewPool.get(tabViewFactory.getTabViewType(position));
+    if (tabView == null) {
+      tabView = tabViewFactory.createTabView(this, position);
+    } else {
+      tabViewFactory.bindTabView(tabView, position);
+    }
+    tabView.setSelected(position == selectedTabPosition);
+    ViewGroup.LayoutParams lp = tabView.getLayoutParams();
+    if (lp == null) {
+      tabView.setLayoutParams(generateDefaultLayoutParams());
+    } else if (!checkLayoutParams(lp)) {
+      tabView.setLayoutParams(generateLayoutParams(lp));
+    }
+    return tabView;
+  }
+
+  private void addTabView(int position, int index) {
+    View tabView = obtainTabView(position);
+    addViewInLayout(tabView, index, tabView.getLayoutParams(), true);
+    measureTabView(tabView, position, tabHeightMeasureSpec);
+    layoutTabView(tabView, position, getHeight());
+    invalidate();
+  }
+
+  private void recycleTabView(int index) {
+    View tabView = getChildAt(index);
+    removeViewInLayout(tabView);
+    tabViewPool.put(getTabViewType(tabView), tabView);
+  }
+
+  private void measureTabView(View tabView, int position, int heightMeasureSpec) {
+    LayoutParams lp = (LayoutParams) tabView.getLayoutParams();
+    int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(
+        tabGeometry.getWidth(position), MeasureSpec.EXACTLY);
+    int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec,
+        getPaddingTop() + getPaddingBottom() + lp.topMargin + lp.bottomMargin, lp.height);
+    tabView.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+  }
+
+  private void layoutTabView(View tabView, int position, int height) {
+    LayoutParams lp = (LayoutParams) tabView.getLayoutParams();
+    int left = tabGeometry.getLeft(position);
+    int tabHeight = tabView.getMeasuredHeight();
+    int top;
+    switch (lp.gravity & Gravity.VERTICAL_GRAVITY_MASK) {
+      case Gravity.CENTER_VERTICAL:
+        top = getPaddingTop() + lp.topMargin - lp.bottomMargin
+            + (height - getPaddingTop() - getPaddingBottom() - tabHeight) / 2;
+        break;
+      case Gravity.BOTTOM:
+        top = height - getPaddingBottom() - lp.bottomMargin - tabHeight;
+        break;
+      default:
+        top = getPaddingTop() + lp.topMargin;
+        break;
+    }
+    tabView.layout(left, top, left + tabView.getMeasuredWidth(), top + tabHeight);
+  }
+
   @Override
   protected void onDraw(Canvas canvas) {
     if (!drawDecorationAfterTab) {
@@ -258,109 +1041,224 @@ class SmartTabStrip extends LinearLayout {
 
   @Override
   protected void dispatchDraw(Canvas canvas) {
+    if (tabTitleRenderer != null) {
+      drawTabTitles(canvas);
+    }
     super.dispatchDraw(canvas);
     if (drawDecorationAfterTab) {
       drawDecoration(canvas);
     }
   }
 
-  private void drawDecoration(Canvas canvas) {
-    final int height = getHeight();
-    final int width = getWidth();
-    final int tabCount = getChildCount();
-    final SmartTabLayout.TabColorizer tabColorizer = getTabColorizer();
-    final boolean isLayoutRtl = Utils.isLayoutRtl(this);
-
-    if (indicatorInFront) {
-      drawOverline(canvas, 0, width);
-      drawUnderline(canvas, 0, width, height);
+  /**
+   * Draw the titles of the drawn mode intersecting the clip of the {@code canvas}.
+   */
+  private void drawTabTitles(Canvas canvas) {
+    if (!canvas.getClipBounds(clipBounds)) {
+      return;
     }
 
-    // Thick colored underline below the current selection
-    if (tabCount > 0) {
-      View selectedTab = getChildAt(selectedPosition);
-      int selectedStart = Utils.getStart(selectedTab, indicatorWithoutPadding);
-      int selectedEnd = Utils.getEnd(selectedTab, indicatorWithoutPadding);
-      int left;
-      int right;
-      if (isLayoutRtl) {
-        left = selectedEnd;
-        right = selectedStart;
-      } else {
-        left = selectedStart;
-        right = selectedEnd;
+    // With hardware acceleration the clip is the whole strip, so the titles are also limited to
+    // the viewport of the parent plus the virtual tabs margin
+    final View parent = (View) getParent();
+    drawnWindowLeft = parent.getScrollX() - getLeft() - virtualTabsMargin;
+    drawnWindowRight = parent.getScrollX() - getLeft() + parent.getWidth() + virtualTabsMargin;
+    final int left = Math.max(clipBounds.left, drawnWindowLeft);
+    final int right = Math.min(clipBounds.right, drawnWindowRight);
+
+    final int first = tabGeometry.getFirstPositionIn(left, right);
+    if (first < 0) {
+      return;
+    }
+    final int last = tabGeometry.getLastPositionIn(left, right);
+    final int top = getPaddingTop();
+    final int bottom = getHeight() - getPaddingBottom();
+    final int focusedPosition = drawnTabAccessibilityHelper.getKeyboardFocusedVirtualViewId();
+    for (int i = first; i <= last; i++) {
+      if (i == focusedPosition) {
+        canvas.drawRect(tabGeometry.getLeft(i), 0, tabGeometry.getRight(i), getHeight(),
+            drawnTabFocusPaint);
       }
+      tabTitleRenderer.draw(canvas, i, tabGeometry.getLeft(i), top, tabGeometry.getRight(i),
+          bottom, i == selectedTabPosition);
+    }
+  }
 
-      int color = tabColorizer.getIndicatorColor(selectedPosition);
-      float thickness = indicatorThickness;
+  private void invalidateDrawnTab(int position) {
+    if (position >= 0 && position < tabGeometry.getCount()) {
+      invalidate(tabGeometry.getLeft(position), 0, tabGeometry.getRight(position), getHeight());
+      drawnTabAccessibilityHelper.invalidateVirtualView(position);
+    }
+  }
 
-      if (selectionOffset > 0f && selectedPosition < (getChildCount() - 1)) {
-        int nextColor = tabColorizer.getIndicatorColor(selectedPosition + 1);
-        if (color != nextColor) {
-          color = blendColors(nextColor, color, selectionOffset);
-        }
+  private void performDrawnTabClick(int position) {
+    playSoundEffect(SoundEffectConstants.CLICK);
+    drawnTabClickListener.onTabClicked(position);
+    drawnTabAccessibilityHelper.sendEventForVirtualView(
+        position, AccessibilityEvent.TYPE_VIEW_CLICKED);
+  }
 
-        // Draw the selection partway between the tabs
-        float startOffset = indicationInterpolator.getLeftEdge(selectionOffset);
-        float endOffset = indicationInterpolator.getRightEdge(selectionOffset);
-        float thicknessOffset = indicationInterpolator.getThickness(selectionOffset);
-
-        View nextTab = getChildAt(selectedPosition + 1);
-        int nextStart = Utils.getStart(nextTab, indicatorWithoutPadding);
-        int nextEnd = Utils.getEnd(nextTab, indicatorWithoutPadding);
-        if (isLayoutRtl) {
-          left = (int) (endOffset * nextEnd + (1.0f - endOffset) * left);
-          right = (int) (startOffset * nextStart + (1.0f - startOffset) * right);
-        } else {
-          left = (int) (startOffset * nextStart + (1.0f - startOffset) * left);
-          right = (int) (endOffset * nextEnd + (1.0f - endOffset) * right);
+  @Override
+  public boolean onTouchEvent(MotionEvent event) {
+    if (tabTitleRenderer == null || drawnTabClickListener == null) {
+      return super.onTouchEvent(event);
+    }
+    // A drag is intercepted by the parent scroll view, which cancels the press
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN:
+        pressedTabPosition = tabGeometry.getPositionAt((int) event.getX());
+        return pressedTabPosition >= 0;
+      case MotionEvent.ACTION_UP:
+        if (pressedTabPosition >= 0
+            && pressedTabPosition == tabGeometry.getPositionAt((int) event.getX())) {
+          performDrawnTabClick(pressedTabPosition);
         }
-        thickness = thickness * thicknessOffset;
-      }
+        pressedTabPosition = -1;
+        return true;
+      case MotionEvent.ACTION_CANCEL:
+        pressedTabPosition = -1;
+        return true;
+      default:
+        return pressedTabPosition >= 0;
+    }
+  }
+
+  @Override
+  protected boolean dispatchHoverEvent(MotionEvent event) {
+    return (drawnTabAccessibilityHelper != null
+        && drawnTabAccessibilityHelper.dispatchHoverEvent(event))
+        || super.dispatchHoverEvent(event);
+  }
+
+  @Override
+  public boolean dispatchKeyEvent(KeyEvent event) {
+    return (drawnTabAccessibilityHelper != null
+        && drawnTabAccessibilityHelper.dispatchKeyEvent(event))
+        || super.dispatchKeyEvent(event);
+  }
+
+  @Override
+  protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect) {
+    super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+    if (drawnTabAccessibilityHelper != null) {
+      drawnTabAccessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+    }
+  }
+
+  /**
+   * Draw the decoration. The lines are drawn only across the clip of the {@code canvas} and the
+   * separators are drawn from a cached buffer, so a partial invalidation stays cheap.
+   */
+  private void drawDecoration(Canvas canvas) {
+    final long startNanos = TabMetrics.beginSection(tabMetrics, "SmartTabStrip.drawDecoration");
+    try {
+      drawDecorationInternal(canvas);
+    } finally {
+      TabMetrics.endSection(tabMetrics, TabMetrics.SECTION_DRAW_DECORATION, startNanos);
+    }
+  }
+
+  private void drawDecorationInternal(Canvas canvas) {
+    if (!canvas.getClipBounds(clipBounds)) {
+      return;
+    }
+
+    final int height = getHeight();
+    final int left = Math.max(0, clipBounds.left);
+    final int right = Math.min(getWidth(), clipBounds.right);
+    final boolean indicatorVisible = (indicatorView == null) && updateIndicator();
 
-      drawIndicator(canvas, left, right, height, thickness, color);
+    if (indicatorVisible) {
+      indicatorRectF.roundOut(lastIndicatorRect);
+    } else {
+      lastIndicatorRect.setEmpty();
+    }
 
+    if (indicatorInFront) {
+      drawOverline(canvas, left, right);
+      drawUnderline(canvas, left, right, height);
+    }
+
+    // Thick colored underline below the current selection
+    if (indicatorVisible) {
+      drawIndicator(canvas);
     }
 
     if (!indicatorInFront) {
-      drawOverline(canvas, 0, width);
-      drawUnderline(canvas, 0, getWidth(), height);
+      drawOverline(canvas, left, right);
+      drawUnderline(canvas, left, right, height);
     }
 
     // Vertical separators between the titles
-    drawSeparator(canvas, height, tabCount);
+    drawSeparator(canvas, height);
 
   }
 
-  private void drawSeparator(Canvas canvas, int height, int tabCount) {
-    if (dividerThickness <= 0) {
-      return;
+  /**
+   * Compute the bounds and the color of the indicator for the current selection into
+   * {@link #indicatorRectF} and {@link #indicatorColor}.
+   *
+   * @return false if there is no indicator to draw
+   */
+  private boolean updateIndicator() {
+    final TabGeometry geometry = tabGeometry;
+    final int tabCount = geometry.getCount();
+    if (tabCount == 0 || selectedPosition >= tabCount
+        || indicatorThickness <= 0 || indicatorWidth == 0) {
+      return false;
     }
 
-    final int dividerHeightPx = (int) (Math.min(Math.max(0f, dividerHeight), 1f) * height);
-    final SmartTabLayout.TabColorizer tabColorizer = getTabColorizer();
+    final IndicatorColors colors = indicatorColorCache;
+    final boolean isLayoutRtl = geometry.isLayoutRtl();
 
-    // Vertical separators between the titles
-    final int separatorTop = (height - dividerHeightPx) / 2;
-    final int separatorBottom = separatorTop + dividerHeightPx;
+    if (colors.isDirty(tabCount)) {
+      final SmartTabLayout.TabColorizer tabColorizer = getTabColorizer();
+      colors.setCount(tabCount);
+      for (int i = 0; i < tabCount; i++) {
+        colors.setColor(i, tabColorizer.getIndicatorColor(i));
+      }
+      colors.updateRamps();
+    }
 
-    final boolean isLayoutRtl = Utils.isLayoutRtl(this);
-    for (int i = 0; i < tabCount - 1; i++) {
-      View child = getChildAt(i);
-      int end = Utils.getEnd(child);
-      int endMargin = Utils.getMarginEnd(child);
-      int separatorX = isLayoutRtl ? end - endMargin : end + endMargin;
-      dividerPaint.setColor(tabColorizer.getDividerColor(i));
-      canvas.drawLine(separatorX, separatorTop, separatorX, separatorBottom, dividerPaint);
+    int selectedStart = geometry.getStart(selectedPosition, indicatorWithoutPadding);
+    int selectedEnd = geometry.getEnd(selectedPosition, indicatorWithoutPadding);
+    int left;
+    int right;
+    if (isLayoutRtl) {
+      left = selectedEnd;
+      right = selectedStart;
+    } else {
+      left = selectedStart;
+      right = selectedEnd;
     }
-  }
 
-  private void drawIndicator(Canvas canvas, int left, int right, int height, float thickness,
-      int color) {
-    if (indicatorThickness <= 0 || indicatorWidth == 0) {
-      return;
+    int color = colors.getColor(selectedPosition);
+    float thickness = indicatorThickness;
+
+    final int next = (nextPosition >= 0) ? nextPosition : selectedPosition + 1;
+    if (selectionOffset > 0f && next < tabCount) {
+      color = (next == selectedPosition + 1)
+          ? colors.getColor(selectedPosition, selectionOffset)
+          : Colors.blend(colors.getColor(next), color, selectionOffset);
+
+      // Draw the selection partway between the tabs
+      float startOffset = indicationInterpolator.getLeftEdge(selectionOffset);
+      float endOffset = indicationInterpolator.getRightEdge(selectionOffset);
+      float thicknessOffset = indicationInterpolator.getThickness(selectionOffset);
+
+      int nextStart = geometry.getStart(next, indicatorWithoutPadding);
+      int nextEnd = geometry.getEnd(next, indicatorWithoutPadding);
+      if (isLayoutRtl) {
+        left = (int) (endOffset * nextEnd + (1.0f - endOffset) * left);
+        right = (int) (startOffset * nextStart + (1.0f - startOffset) * right);
+      } else {
+        left = (int) (startOffset * nextStart + (1.0f - startOffset) * left);
+        right = (int) (endOffset * nextEnd + (1.0f - endOffset) * right);
+      }
+      thickness = thickness * thicknessOffset;
     }
 
+    final int height = getHeight();
     float center;
     float top;
     float bottom;
@@ -383,14 +1281,34 @@ class SmartTabStrip extends LinearLayout {
         bottom = center + (thickness / 2f);
     }
 
-    indicatorPaint.setColor(color);
     if (indicatorWidth == AUTO_WIDTH) {
       indicatorRectF.set(left, top, right, bottom);
     } else {
       float padding = (Math.abs(left - right) - indicatorWidth) / 2f;
       indicatorRectF.set(left + padding, top, right - padding, bottom);
     }
+    indicatorColor = color;
+    return true;
+  }
 
+  private void drawSeparator(Canvas canvas, int height) {
+    if (dividerThickness <= 0) {
+      return;
+    }
+
+    if (tabSeparators.isDirty()) {
+      final int dividerHeightPx = (int) (Math.min(Math.max(0f, dividerHeight), 1f) * height);
+
+      // Vertical separators between the titles
+      final int separatorTop = (height - dividerHeightPx) / 2;
+      final int separatorBottom = separatorTop + dividerHeightPx;
+      tabSeparators.update(tabGeometry, getTabColorizer(), separatorTop, separatorBottom);
+    }
+    tabSeparators.draw(canvas, dividerPaint);
+  }
+
+  private void drawIndicator(Canvas canvas) {
+    indicatorPaint.setColor(indicatorColor);
     if (indicatorCornerRadius > 0f) {
       canvas.drawRoundRect(
           indicatorRectF, indicatorCornerRadius,
@@ -418,6 +1336,135 @@ class SmartTabStrip extends LinearLayout {
     canvas.drawRect(left, height - bottomBorderThickness, right, height, borderPaint);
   }
 
+  /**
+   * Draws the indicator on the overlay of the strip. Only the render properties of this view are
+   * updated while the indicator moves, and it is redrawn only when its size or color changes.
+   */
+  private static class IndicatorView extends View {
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF rect = new RectF();
+    private final float cornerRadius;
+
+    IndicatorView(Context context, float cornerRadius) {
+      super(context);
+      this.cornerRadius = cornerRadius;
+    }
+
+    void setIndicator(RectF bounds, int color) {
+      if (paint.getColor() != color) {
+        paint.setColor(color);
+        invalidate();
+      }
+      layout(Math.round(bounds.left), Math.round(bounds.top),
+          Math.round(bounds.right), Math.round(bounds.bottom));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+      rect.set(0, 0, getWidth(), getHeight());
+      if (cornerRadius > 0f) {
+        canvas.drawRoundRect(rect, cornerRadius, cornerRadius, paint);
+      } else {
+        canvas.drawRect(rect, paint);
+      }
+    }
+
+  }
+
+  /**
+   * Exposes the tabs of the drawn mode as virtual views to the accessibility services.
+   */
+  private class DrawnTabAccessibilityHelper extends ExploreByTouchHelper {
+
+    private final Rect bounds = new Rect();
+
+    DrawnTabAccessibilityHelper() {
+      super(SmartTabStrip.this);
+    }
+
+    @Override
+    protected int getVirtualViewAt(float x, float y) {
+      final int position = tabGeometry.getPositionAt((int) x);
+      return (position >= 0) ? position : INVALID_ID;
+    }
+
+    @Override
+    protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+      for (int i = 0, size = tabGeometry.getCount(); i < size; i++) {
+        virtualViewIds.add(i);
+      }
+    }
+
+    @Override
+    protected void onPopulateNodeForVirtualView(int virtualViewId,
+        AccessibilityNodeInfoCompat node) {
+      if (virtualViewId < tabGeometry.getCount() && virtualViewId < tabTitleRenderer.getCount()) {
+        bounds.set(tabGeometry.getLeft(virtualViewId), 0,
+            tabGeometry.getRight(virtualViewId), getHeight());
+        node.setText(tabTitleRenderer.getTitle(virtualViewId));
+      } else {
+        // The tab has been removed since the node was requested
+        bounds.set(0, 0, 1, 1);
+        node.setText("");
+      }
+      node.setBoundsInParent(bounds);
+      node.setSelected(virtualViewId == selectedTabPosition);
+      if (drawnTabClickListener != null) {
+        node.setClickable(true);
+        node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+      }
+    }
+
+    @Override
+    protected void onVirtualViewKeyboardFocusChanged(int virtualViewId, boolean hasFocus) {
+      if (virtualViewId < tabGeometry.getCount()) {
+        bounds.set(tabGeometry.getLeft(virtualViewId), 0,
+            tabGeometry.getRight(virtualViewId), getHeight());
+        invalidate(bounds);
+        if (hasFocus) {
+          // Let the parent scroll view bring the focused tab into the viewport
+          requestRectangleOnScreen(bounds);
+        }
+      }
+    }
+
+    @Override
+    protected boolean onPerformActionForVirtualView(int virtualViewId, int action,
+        Bundle arguments) {
+      if (action == AccessibilityNodeInfoCompat.ACTION_CLICK && drawnTabClickListener != null
+          && virtualViewId < tabGeometry.getCount()) {
+        performDrawnTabClick(virtualViewId);
+        return true;
+      }
+      return false;
+    }
+
+  }
+
+  /**
+   * Creates and binds the tab views materialized in the virtual mode.
+   */
+  interface TabViewFactory {
+
+    /**
+     * @return the view type of {@code position} or {@link TabViewPool#NO_TYPE} if the tab view can
+     * not be recycled
+     */
+    int getTabViewType(int position);
+
+    /**
+     * @return the measured width of the tab view of {@code position} if it is known without
+     * creating the view, or -1
+     */
+    int getTabWidth(int position);
+
+    View createTabView(ViewGroup container, int position);
+
+    void bindTabView(View tabView, int position);
+
+  }
+
   private static class SimpleTabColorizer implements SmartTabLayout.TabColorizer {
 
     private int[] indicatorColors;
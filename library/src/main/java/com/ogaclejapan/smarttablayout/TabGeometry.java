@@ -0,0 +1,241 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+/**
+ * Cached offset table of the tabs laid out by {@link SmartTabStrip}.
+ * <p>
+ * Scrolling and indicator drawing read the bounds of a tab from here, so they do not require a
+ * child view to exist for every position. The prefix sum of the tab widths and the direction
+ * resolved edges are rebuilt once per measure and layout, so every query is an array read.
+ */
+final class TabGeometry {
+
+  private static final int[] EMPTY = new int[0];
+
+  private int count;
+  private boolean layoutRtl;
+  private int[] lefts = EMPTY;
+  private int[] widths = EMPTY;
+  private int[] marginStarts = EMPTY;
+  private int[] marginEnds = EMPTY;
+  private int[] paddingStarts = EMPTY;
+  private int[] paddingEnds = EMPTY;
+  private int[] starts = EMPTY;
+  private int[] ends = EMPTY;
+  private int[] startsWithoutPadding = EMPTY;
+  private int[] endsWithoutPadding = EMPTY;
+  private int[] offsets = new int[1];
+
+  void setCount(int count) {
+    if (lefts.length < count) {
+      lefts = new int[count];
+      widths = new int[count];
+      marginStarts = new int[count];
+      marginEnds = new int[count];
+      paddingStarts = new int[count];
+      paddingEnds = new int[count];
+      starts = new int[count];
+      ends = new int[count];
+      startsWithoutPadding = new int[count];
+      endsWithoutPadding = new int[count];
+      offsets = new int[count + 1];
+    }
+    this.count = count;
+  }
+
+  void setLayoutRtl(boolean layoutRtl) {
+    this.layoutRtl = layoutRtl;
+  }
+
+  void setMeasurement(int position, int width, int marginStart, int marginEnd,
+      int paddingStart, int paddingEnd) {
+    widths[position] = width;
+    marginStarts[position] = marginStart;
+    marginEnds[position] = marginEnd;
+    paddingStarts[position] = paddingStart;
+    paddingEnds[position] = paddingEnd;
+  }
+
+  void setLeft(int position, int left) {
+    lefts[position] = left;
+  }
+
+  /**
+   * Rebuild the prefix sum of the widths. This must be called after all tabs have been measured.
+   */
+  void updateOffsets() {
+    int offset = 0;
+    for (int i = 0; i < count; i++) {
+      offsets[i] = offset;
+      offset += widths[i] + marginStarts[i] + marginEnds[i];
+    }
+    offsets[count] = offset;
+  }
+
+  /**
+   * Rebuild the direction resolved edges. This must be called after all tabs have been
+   * positioned.
+   */
+  void updateEdges() {
+    for (int i = 0; i < count; i++) {
+      int left = lefts[i];
+      int right = left + widths[i];
+      if (layoutRtl) {
+        starts[i] = right;
+        ends[i] = left;
+        startsWithoutPadding[i] = right - paddingStarts[i];
+        endsWithoutPadding[i] = left + paddingEnds[i];
+      } else {
+        starts[i] = left;
+        ends[i] = right;
+        startsWithoutPadding[i] = left + paddingStarts[i];
+        endsWithoutPadding[i] = right - paddingEnds[i];
+      }
+    }
+  }
+
+  int getCount() {
+    return count;
+  }
+
+  boolean isLayoutRtl() {
+    return layoutRtl;
+  }
+
+  int getLeft(int position) {
+    return lefts[position];
+  }
+
+  int getRight(int position) {
+    return lefts[position] + widths[position];
+  }
+
+  int getWidth(int position) {
+    return widths[position];
+  }
+
+  int getWidthWithMargin(int position) {
+    return offsets[position + 1] - offsets[position];
+  }
+
+  /**
+   * @return the total width of the tabs before {@code position} including their margins
+   */
+  int getOffset(int position) {
+    return offsets[position];
+  }
+
+  /**
+   * @return the total width occupied by all tabs including their margins
+   */
+  int getContentWidth() {
+    return offsets[count];
+  }
+
+  int getMarginStart(int position) {
+    return marginStarts[position];
+  }
+
+  int getMarginEnd(int position) {
+    return marginEnds[position];
+  }
+
+  int getStart(int position) {
+    return starts[position];
+  }
+
+  int getStart(int position, boolean withoutPadding) {
+    return (withoutPadding) ? startsWithoutPadding[position] : starts[position];
+  }
+
+  int getEnd(int position) {
+    return ends[position];
+  }
+
+  int getEnd(int position, boolean withoutPadding) {
+    return (withoutPadding) ? endsWithoutPadding[position] : ends[position];
+  }
+
+  /**
+   * @return the position of the tab containing {@code x}, or -1 if {@code x} is outside of the
+   * tabs or within the margins between them
+   */
+  int getPositionAt(int x) {
+    final int first = getFirstPositionIn(x, x + 1);
+    return (first >= 0 && first == getLastPositionIn(x, x + 1)) ? first : -1;
+  }
+
+  /**
+   * @return the lowest position of the tabs intersecting {@code [left, right)}, or -1 if there is
+   * no such tab
+   */
+  int getFirstPositionIn(int left, int right) {
+    final int first = (layoutRtl) ? countRightOf(right) : countLeftOf(left);
+    final int last = count - 1 - ((layoutRtl) ? countLeftOf(left) : countRightOf(right));
+    return (first <= last) ? first : -1;
+  }
+
+  /**
+   * @return the highest position of the tabs intersecting {@code [left, right)}, or -1 if there
+   * is no such tab
+   */
+  int getLastPositionIn(int left, int right) {
+    final int first = (layoutRtl) ? countRightOf(right) : countLeftOf(left);
+    final int last = count - 1 - ((layoutRtl) ? countLeftOf(left) : countRightOf(right));
+    return (first <= last) ? last : -1;
+  }
+
+  /**
+   * The tabs do not overlap, so their edges are sorted in the order of the positions, descending
+   * in a right-to-left layout, and both counts below are binary searches.
+   *
+   * @return the number of the tabs lying entirely to the left of {@code x}
+   */
+  private int countLeftOf(int x) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      boolean leftOf = lefts[mid] + widths[mid] <= x;
+      if (leftOf != layoutRtl) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return (layoutRtl) ? count - low : low;
+  }
+
+  /**
+   * @return the number of the tabs lying entirely to the right of {@code x}
+   */
+  private int countRightOf(int x) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      boolean rightOf = lefts[mid] >= x;
+      if (rightOf == layoutRtl) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return (layoutRtl) ? low : count - low;
+  }
+
+}
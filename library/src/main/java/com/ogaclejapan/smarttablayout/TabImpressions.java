@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import android.os.SystemClock;
+
+import androidx.core.view.ViewCompat;
+
+/**
+ * Tabs that became visible or hidden in a {@link SmartTabLayout} since the previous dispatch. Set
+ * with {@link SmartTabLayout#setOnTabImpressionListener(SmartTabLayout.OnTabImpressionListener)}.
+ * <p>
+ * The visible tabs are computed from the laid out tabs at most once per frame, or once per the
+ * given interval, however often the layout scrolls. The instance is reused for every dispatch, so
+ * copy the values to keep them.
+ */
+public final class TabImpressions {
+
+  private final SmartTabLayout host;
+  private final SmartTabLayout.OnTabImpressionListener listener;
+  private final long intervalMillis;
+  private final Runnable dispatchRunnable = new Runnable() {
+    @Override
+    public void run() {
+      dispatchScheduled = false;
+      dispatch();
+    }
+  };
+  private int firstVisiblePosition = -1;
+  private int lastVisiblePosition = -1;
+  private int[] enteredPositions = new int[8];
+  private int enteredCount;
+  private int[] leftPositions = new int[8];
+  private int leftCount;
+  private long lastDispatchMillis;
+  private boolean dispatchScheduled;
+
+  TabImpressions(SmartTabLayout host, SmartTabLayout.OnTabImpressionListener listener,
+      long intervalMillis) {
+    this.host = host;
+    this.listener = listener;
+    this.intervalMillis = intervalMillis;
+  }
+
+  /**
+   * @return the lowest visible position or -1 if no tab is visible
+   */
+  public int getFirstVisiblePosition() {
+    return firstVisiblePosition;
+  }
+
+  /**
+   * @return the highest visible position or -1 if no tab is visible
+   */
+  public int getLastVisiblePosition() {
+    return lastVisiblePosition;
+  }
+
+  /**
+   * @return the number of the tabs that became visible
+   */
+  public int getEnteredCount() {
+    return enteredCount;
+  }
+
+  /**
+   * @param index the index between 0 and {@link #getEnteredCount()}
+   * @return the position of a tab that became visible
+   */
+  public int getEnteredPosition(int index) {
+    return enteredPositions[index];
+  }
+
+  /**
+   * @return the number of the tabs that became hidden
+   */
+  public int getLeftCount() {
+    return leftCount;
+  }
+
+  /**
+   * @param index the index between 0 and {@link #getLeftCount()}
+   * @return the position of a tab that became hidden
+   */
+  public int getLeftPosition(int index) {
+    return leftPositions[index];
+  }
+
+  /**
+   * Schedule the visible tabs to be computed again, after the tabs have been scrolled or laid out.
+   */
+  void onTabsMoved() {
+    if (dispatchScheduled) {
+      return;
+    }
+    dispatchScheduled = true;
+    final long delayMillis = lastDispatchMillis + intervalMillis - SystemClock.uptimeMillis();
+    if (delayMillis > 0) {
+      ViewCompat.postOnAnimationDelayed(host, dispatchRunnable, delayMillis);
+    } else {
+      ViewCompat.postOnAnimation(host, dispatchRunnable);
+    }
+  }
+
+  /**
+   * Drop the scheduled dispatch, when the listener is replaced.
+   */
+  void cancel() {
+    if (dispatchScheduled) {
+      host.removeCallbacks(dispatchRunnable);
+      dispatchScheduled = false;
+    }
+  }
+
+  /**
+   * Forget the visible tabs, so that all tabs visible at the next dispatch are reported as
+   * entered. Called when the tabs are populated again and their positions are no longer related.
+   */
+  void reset() {
+    firstVisiblePosition = -1;
+    lastVisiblePosition = -1;
+  }
+
+  private void dispatch() {
+    final int first = host.getFirstVisibleTabPosition();
+    final int last = host.getLastVisibleTabPosition();
+    if (first == firstVisiblePosition && last == lastVisiblePosition) {
+      return;
+    }
+
+    // Both the old and the new visible tabs form a single range, so only those ranges are walked
+    ensureCapacity(last - first + 1);
+    enteredCount = 0;
+    if (first >= 0) {
+      for (int i = first; i <= last; i++) {
+        if (!isVisible(i, firstVisiblePosition, lastVisiblePosition)) {
+          enteredPositions[enteredCount++] = i;
+        }
+      }
+    }
+    leftCount = 0;
+    if (firstVisiblePosition >= 0) {
+      for (int i = firstVisiblePosition; i <= lastVisiblePosition; i++) {
+        if (!isVisible(i, first, last)) {
+          leftPositions[leftCount++] = i;
+        }
+      }
+    }
+
+    firstVisiblePosition = first;
+    lastVisiblePosition = last;
+    lastDispatchMillis = SystemClock.uptimeMillis();
+    listener.onTabImpressions(this);
+  }
+
+  private void ensureCapacity(int count) {
+    if (enteredPositions.length < count) {
+      enteredPositions = new int[count];
+    }
+    final int lastCount = lastVisiblePosition - firstVisiblePosition + 1;
+    if (leftPositions.length < lastCount) {
+      leftPositions = new int[lastCount];
+    }
+  }
+
+  private static boolean isVisible(int position, int first, int last) {
+    return first >= 0 && first <= position && position <= last;
+  }
+
+}
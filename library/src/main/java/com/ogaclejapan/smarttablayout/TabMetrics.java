@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import android.view.View;
+
+import androidx.core.view.ViewCompat;
+
+/**
+ * Time spent and work done by a {@link SmartTabLayout} within a frame. Set with
+ * {@link SmartTabLayout#setOnTabMetricsListener(SmartTabLayout.OnTabMetricsListener)}.
+ * <p>
+ * The measured sections are emitted as trace sections only when enabled with
+ * {@link SmartTabLayout#setTraceEnabled(boolean)}, so that each section is traced once. The
+ * instance is reused for every frame, so copy the values to keep them.
+ */
+public final class TabMetrics {
+
+  static final int SECTION_SCROLL_TO_TAB = 0;
+  static final int SECTION_DRAW_DECORATION = 1;
+  static final int SECTION_POPULATE = 2;
+  static final int SECTION_TAB_CLICK = 3;
+
+  private static final int SECTION_COUNT = 4;
+
+  private final View host;
+  private final SmartTabLayout.OnTabMetricsListener listener;
+  private final long[] sectionNanos = new long[SECTION_COUNT];
+  private final Runnable dispatchRunnable = new Runnable() {
+    @Override
+    public void run() {
+      dispatchScheduled = false;
+      listener.onTabMetrics(TabMetrics.this);
+      reset();
+    }
+  };
+  private int invalidationCount;
+  private int tabViewCreationCount;
+  private boolean dispatchScheduled;
+
+  TabMetrics(View host, SmartTabLayout.OnTabMetricsListener listener) {
+    this.host = host;
+    this.listener = listener;
+  }
+
+  /**
+   * @return the time spent in scrolling the layout to the selected tab in nanoseconds
+   */
+  public long getScrollToTabNanos() {
+    return sectionNanos[SECTION_SCROLL_TO_TAB];
+  }
+
+  /**
+   * @return the time spent in drawing the indicator, lines and dividers in nanoseconds
+   */
+  public long getDrawDecorationNanos() {
+    return sectionNanos[SECTION_DRAW_DECORATION];
+  }
+
+  /**
+   * @return the time spent in creating or updating the tabs for the adapter in nanoseconds
+   */
+  public long getPopulateNanos() {
+    return sectionNanos[SECTION_POPULATE];
+  }
+
+  /**
+   * @return the time spent in dispatching tab clicks in nanoseconds
+   */
+  public long getTabClickNanos() {
+    return sectionNanos[SECTION_TAB_CLICK];
+  }
+
+  /**
+   * @return the number of times the tab strip or its indicator has been invalidated
+   */
+  public int getInvalidationCount() {
+    return invalidationCount;
+  }
+
+  /**
+   * @return the number of tab views created, not counting recycled ones
+   */
+  public int getTabViewCreationCount() {
+    return tabViewCreationCount;
+  }
+
+  /**
+   * Begin a section traced when enabled and measured for {@code metrics}, if any.
+   *
+   * @return the start time to be passed to {@link #endSection(TabMetrics, int, long)}
+   */
+  static long beginSection(TabMetrics metrics, String sectionName) {
+    Tracing.beginSection(sectionName);
+    return (metrics != null) ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * End a section begun by {@link #beginSection(TabMetrics, String)}. Call it in a finally block.
+   */
+  static void endSection(TabMetrics metrics, int section, long startNanos) {
+    Tracing.endSection();
+    // The metrics may have been set within the section
+    if (metrics != null && startNanos != 0L) {
+      metrics.sectionNanos[section] += System.nanoTime() - startNanos;
+      metrics.scheduleDispatch();
+    }
+  }
+
+  void onInvalidate() {
+    invalidationCount++;
+    scheduleDispatch();
+  }
+
+  void onTabViewCreated() {
+    tabViewCreationCount++;
+    scheduleDispatch();
+  }
+
+  /**
+   * Drop the scheduled dispatch, when the listener is replaced.
+   */
+  void cancel() {
+    if (dispatchScheduled) {
+      host.removeCallbacks(dispatchRunnable);
+      dispatchScheduled = false;
+    }
+  }
+
+  private void scheduleDispatch() {
+    if (!dispatchScheduled) {
+      dispatchScheduled = true;
+      ViewCompat.postOnAnimation(host, dispatchRunnable);
+    }
+  }
+
+  private void reset() {
+    for (int i = 0; i < sectionNanos.length; i++) {
+      sectionNanos[i] = 0;
+    }
+    invalidationCount = 0;
+    tabViewCreationCount = 0;
+  }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+/**
+ * Computes the scroll position of {@link SmartTabLayout} from the {@link TabGeometry}.
+ * <p>
+ * Does not depend on the Android framework, so the computation also runs on a plain JVM.
+ */
+final class TabScroller {
+
+  static final int TITLE_OFFSET_AUTO_CENTER = -1;
+
+  /**
+   * @param geometry the laid out tabs
+   * @param tabIndex the selected tab, must be a valid position of {@code geometry}
+   * @param positionOffset the offset from {@code tabIndex} towards the next tab
+   * @param indicatorAlwaysInCenter whether {@code stl_indicatorAlwaysInCenter} is enabled
+   * @param titleOffset the value of {@code stl_titleOffset}
+   * @param width the width of the scroll view
+   * @param paddingStart the start padding of the scroll view
+   * @param paddingHorizontally the sum of the horizontal paddings of the scroll view
+   * @return the horizontal scroll position
+   */
+  static int getScrollX(TabGeometry geometry, int tabIndex, float positionOffset,
+      boolean indicatorAlwaysInCenter, int titleOffset, int width, int paddingStart,
+      int paddingHorizontally) {
+
+    final boolean isLayoutRtl = geometry.isLayoutRtl();
+    final boolean hasNextTab = tabIndex + 1 < geometry.getCount();
+    int widthPlusMargin = geometry.getWidthWithMargin(tabIndex);
+    int extraOffset = (int) (positionOffset * widthPlusMargin);
+
+    if (indicatorAlwaysInCenter) {
+
+      if (0f < positionOffset && positionOffset < 1f && hasNextTab) {
+        int selectHalfWidth = geometry.getWidth(tabIndex) / 2 + geometry.getMarginEnd(tabIndex);
+        int nextHalfWidth = geometry.getWidth(tabIndex + 1) / 2
+            + geometry.getMarginStart(tabIndex + 1);
+        extraOffset = Math.round(positionOffset * (selectHalfWidth + nextHalfWidth));
+      }
+
+      int x;
+      if (isLayoutRtl) {
+        int first = geometry.getWidth(0) + geometry.getMarginEnd(0);
+        int selected = geometry.getWidth(tabIndex) + geometry.getMarginEnd(tabIndex);
+        x = geometry.getEnd(tabIndex) - geometry.getMarginEnd(tabIndex) - extraOffset;
+        x -= (first - selected) / 2;
+      } else {
+        int first = geometry.getWidth(0) + geometry.getMarginStart(0);
+        int selected = geometry.getWidth(tabIndex) + geometry.getMarginStart(tabIndex);
+        x = geometry.getStart(tabIndex) - geometry.getMarginStart(tabIndex) + extraOffset;
+        x -= (first - selected) / 2;
+      }
+
+      return x;
+
+    }
+
+    int x;
+    if (titleOffset == TITLE_OFFSET_AUTO_CENTER) {
+
+      if (0f < positionOffset && positionOffset < 1f && hasNextTab) {
+        int selectHalfWidth = geometry.getWidth(tabIndex) / 2 + geometry.getMarginEnd(tabIndex);
+        int nextHalfWidth = geometry.getWidth(tabIndex + 1) / 2
+            + geometry.getMarginStart(tabIndex + 1);
+        extraOffset = Math.round(positionOffset * (selectHalfWidth + nextHalfWidth));
+      }
+
+      if (isLayoutRtl) {
+        x = -geometry.getWidthWithMargin(tabIndex) / 2 + width / 2;
+        x -= paddingStart;
+      } else {
+        x = geometry.getWidthWithMargin(tabIndex) / 2 - width / 2;
+        x += paddingStart;
+      }
+
+    } else {
+
+      if (isLayoutRtl) {
+        x = (tabIndex > 0 || positionOffset > 0) ? titleOffset : 0;
+      } else {
+        x = (tabIndex > 0 || positionOffset > 0) ? -titleOffset : 0;
+      }
+
+    }
+
+    int start = geometry.getStart(tabIndex);
+    int startMargin = geometry.getMarginStart(tabIndex);
+    if (isLayoutRtl) {
+      x += start + startMargin - extraOffset - width + paddingHorizontally;
+    } else {
+      x += start - startMargin + extraOffset;
+    }
+
+    return x;
+  }
+
+  private TabScroller() { }
+
+}
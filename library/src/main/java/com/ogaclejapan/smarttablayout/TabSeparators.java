@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * Cached line buffer of the vertical separators between the tabs.
+ * <p>
+ * The separators only change with the layout or the divider colors, so their points are built
+ * once, grouped by color, and drawn with a single {@link Canvas#drawLines} call per color.
+ */
+final class TabSeparators {
+
+  private static final int[] EMPTY_INTS = new int[0];
+  private static final float[] EMPTY_FLOATS = new float[0];
+
+  private float[] lines = EMPTY_FLOATS;
+  private int[] groups = EMPTY_INTS;
+  private int[] colors = EMPTY_INTS;
+  private int[] starts = new int[1];
+  private int[] cursors = EMPTY_INTS;
+  private int groupCount;
+  private boolean dirty = true;
+
+  /**
+   * Mark the separators to be rebuilt on the next draw.
+   */
+  void invalidate() {
+    dirty = true;
+  }
+
+  boolean isDirty() {
+    return dirty;
+  }
+
+  void update(TabGeometry geometry, SmartTabLayout.TabColorizer colorizer, int top, int bottom) {
+    final int count = Math.max(0, geometry.getCount() - 1);
+    if (groups.length < count) {
+      lines = new float[count * 4];
+      groups = new int[count];
+      colors = new int[count];
+      starts = new int[count + 1];
+      cursors = new int[count];
+    }
+
+    // Assign a group to each separator by its color and count the separators of each group
+    groupCount = 0;
+    for (int i = 0; i < count; i++) {
+      int color = colorizer.getDividerColor(i);
+      int group = 0;
+      while (group < groupCount && colors[group] != color) {
+        group++;
+      }
+      if (group == groupCount) {
+        colors[group] = color;
+        cursors[group] = 0;
+        groupCount++;
+      }
+      cursors[group]++;
+      groups[i] = group;
+    }
+
+    int start = 0;
+    for (int g = 0; g < groupCount; g++) {
+      starts[g] = start;
+      start += cursors[g];
+      cursors[g] = starts[g];
+    }
+    starts[groupCount] = start;
+
+    final boolean isLayoutRtl = geometry.isLayoutRtl();
+    for (int i = 0; i < count; i++) {
+      int end = geometry.getEnd(i);
+      int endMargin = geometry.getMarginEnd(i);
+      int separatorX = isLayoutRtl ? end - endMargin : end + endMargin;
+      int offset = (cursors[groups[i]]++) * 4;
+      lines[offset] = separatorX;
+      lines[offset + 1] = top;
+      lines[offset + 2] = separatorX;
+      lines[offset + 3] = bottom;
+    }
+
+    dirty = false;
+  }
+
+  void draw(Canvas canvas, Paint paint) {
+    for (int g = 0; g < groupCount; g++) {
+      paint.setColor(colors[g]);
+      canvas.drawLines(lines, starts[g] * 4, (starts[g + 1] - starts[g]) * 4, paint);
+    }
+  }
+
+}
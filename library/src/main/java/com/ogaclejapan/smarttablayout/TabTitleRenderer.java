@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import java.util.Locale;
+
+/**
+ * Draws the titles of the default tabs directly on the tab strip, with the same text style as
+ * the {@link android.widget.TextView} created by {@link SmartTabLayout#createDefaultTabView}.
+ * <p>
+ * The text layout of each title is cached until the titles or the width of its tab change.
+ */
+final class TabTitleRenderer {
+
+  private static final CharSequence[] EMPTY_TITLES = new CharSequence[0];
+  private static final int[] STATE_DEFAULT = { android.R.attr.state_enabled };
+  private static final int[] STATE_SELECTED = {
+      android.R.attr.state_enabled, android.R.attr.state_selected };
+
+  private final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+  private final TabTitleWidths titleWidths;
+  private final ColorStateList textColors;
+  private final boolean allCaps;
+  private final int horizontalPadding;
+  private final int minWidth;
+  private final Locale locale;
+  private CharSequence[] titles = EMPTY_TITLES;
+  private StaticLayout[] layouts = new StaticLayout[0];
+
+  TabTitleRenderer(ColorStateList textColors, float textSize, Typeface typeface, boolean allCaps,
+      int horizontalPadding, int minWidth, Locale locale) {
+    this.paint.setTextSize(textSize);
+    this.paint.setTypeface(typeface);
+    this.titleWidths = new TabTitleWidths(textSize, typeface, allCaps);
+    this.textColors = textColors;
+    this.allCaps = allCaps;
+    this.horizontalPadding = horizontalPadding;
+    this.minWidth = minWidth;
+    this.locale = locale;
+  }
+
+  void setTitles(CharSequence[] titles) {
+    this.titles = titles;
+    this.layouts = new StaticLayout[titles.length];
+  }
+
+  int getCount() {
+    return titles.length;
+  }
+
+  CharSequence getTitle(int position) {
+    return titles[position];
+  }
+
+  int getHorizontalPadding() {
+    return horizontalPadding;
+  }
+
+  /**
+   * @return the width of the tab of {@code position} including its padding
+   */
+  int getTabWidth(int position) {
+    final CharSequence title = titles[position];
+    int textWidth = (title == null || title instanceof String)
+        ? titleWidths.getWidth((String) title, locale)
+        : (int) Math.ceil(Layout.getDesiredWidth(getDisplayText(position), paint));
+    return Math.max(textWidth + horizontalPadding * 2, minWidth);
+  }
+
+  /**
+   * @return the height of a single line of the title, including the font padding
+   */
+  int getTextHeight() {
+    Paint.FontMetricsInt fm = paint.getFontMetricsInt();
+    return fm.bottom - fm.top;
+  }
+
+  /**
+   * Draw the title of {@code position} centered within the bounds of its tab.
+   */
+  void draw(Canvas canvas, int position, int left, int top, int right, int bottom,
+      boolean selected) {
+    final int textWidth = right - left - horizontalPadding * 2;
+    if (textWidth <= 0) {
+      return;
+    }
+
+    StaticLayout layout = layouts[position];
+    if (layout == null || layout.getWidth() != textWidth) {
+      layout = new StaticLayout(getDisplayText(position), paint, textWidth,
+          Layout.Alignment.ALIGN_CENTER, 1f, 0f, true);
+      layouts[position] = layout;
+    }
+
+    paint.setColor(textColors.getColorForState(
+        selected ? STATE_SELECTED : STATE_DEFAULT, textColors.getDefaultColor()));
+    canvas.save();
+    canvas.translate(left + horizontalPadding, top + (bottom - top - layout.getHeight()) / 2);
+    layout.draw(canvas);
+    canvas.restore();
+  }
+
+  private CharSequence getDisplayText(int position) {
+    final CharSequence title = (titles[position] != null) ? titles[position] : "";
+    return (allCaps) ? title.toString().toUpperCase(locale) : title;
+  }
+
+}
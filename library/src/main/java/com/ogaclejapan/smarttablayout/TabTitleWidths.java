@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.TextPaint;
+
+import java.util.Locale;
+
+import androidx.collection.LruCache;
+
+/**
+ * Measures the width of the tab titles with the text style of the default tabs.
+ * <p>
+ * The widths are kept in an LRU cache shared by all layouts and keyed by the title and the text
+ * style, so measuring the tabs again after a rotation or a rebinding does not lay out any text.
+ */
+final class TabTitleWidths {
+
+  private static final int MAX_CACHE_SIZE = 512;
+  private static final LruCache<Key, Integer> CACHE = new LruCache<>(MAX_CACHE_SIZE);
+
+  private final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+  private final boolean allCaps;
+
+  TabTitleWidths(float textSize, Typeface typeface, boolean allCaps) {
+    this.paint.setTextSize(textSize);
+    this.paint.setTypeface(typeface);
+    this.allCaps = allCaps;
+  }
+
+  /**
+   * @param locale the locale used to transform the title to upper case
+   * @return the width of the text of {@code title} without padding
+   */
+  int getWidth(String title, Locale locale) {
+    final String text = (title != null) ? title : "";
+    final Key key = new Key(text, paint.getTextSize(), paint.getTypeface(), allCaps, locale);
+    Integer width = CACHE.get(key);
+    if (width == null) {
+      String displayText = (allCaps) ? text.toUpperCase(locale) : text;
+      width = (int) Math.ceil(Layout.getDesiredWidth(displayText, paint));
+      CACHE.put(key, width);
+    }
+    return width;
+  }
+
+  private static final class Key {
+
+    private final String title;
+    private final float textSize;
+    private final Typeface typeface;
+    private final boolean allCaps;
+    private final Locale locale;
+
+    Key(String title, float textSize, Typeface typeface, boolean allCaps, Locale locale) {
+      this.title = title;
+      this.textSize = textSize;
+      this.typeface = typeface;
+      this.allCaps = allCaps;
+      this.locale = locale;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return textSize == other.textSize
+          && allCaps == other.allCaps
+          && title.equals(other.title)
+          && (typeface == null ? other.typeface == null : typeface.equals(other.typeface))
+          && (locale == null ? other.locale == null : locale.equals(other.locale));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = title.hashCode();
+      result = 31 * result + Float.floatToIntBits(textSize);
+      result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+      result = 31 * result + (allCaps ? 1 : 0);
+      result = 31 * result + (locale != null ? locale.hashCode() : 0);
+      return result;
+    }
+
+  }
+
+}
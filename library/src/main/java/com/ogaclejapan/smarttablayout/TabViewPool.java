@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import android.view.View;
+
+import java.util.ArrayList;
+
+import androidx.collection.SparseArrayCompat;
+
+/**
+ * Pool of detached tab views keyed by view type.
+ */
+final class TabViewPool {
+
+  /**
+   * View type of tab views that can not be recycled.
+   */
+  static final int NO_TYPE = -1;
+
+  private static final int DEFAULT_MAX_SCRAP = 8;
+
+  private final SparseArrayCompat<ArrayList<View>> scraps = new SparseArrayCompat<>();
+  private final int maxScrap;
+
+  TabViewPool() {
+    this(DEFAULT_MAX_SCRAP);
+  }
+
+  TabViewPool(int maxScrap) {
+    this.maxScrap = maxScrap;
+  }
+
+  View get(int viewType) {
+    final ArrayList<View> scrap = scraps.get(viewType);
+    if (scrap == null || scrap.isEmpty()) {
+      return null;
+    }
+    return scrap.remove(scrap.size() - 1);
+  }
+
+  void put(int viewType, View view) {
+    if (viewType == NO_TYPE) {
+      return;
+    }
+    ArrayList<View> scrap = scraps.get(viewType);
+    if (scrap == null) {
+      scrap = new ArrayList<>();
+      scraps.put(viewType, scrap);
+    }
+    if (scrap.size() < maxScrap) {
+      scrap.add(view);
+    }
+  }
+
+  void clear() {
+    scraps.clear();
+  }
+
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import androidx.core.os.TraceCompat;
+
+/**
+ * Trace sections around the hot paths of the library, disabled by default. Enable with
+ * {@link SmartTabLayout#setTraceEnabled(boolean)}.
+ */
+final class Tracing {
+
+  private static boolean enabled;
+  // A stack of the open sections, one bit each, set if the section has begun
+  private static long beganSections;
+
+  private Tracing() { }
+
+  static void setEnabled(boolean enabled) {
+    Tracing.enabled = enabled;
+  }
+
+  /**
+   * Begin a section, to be closed by {@link #endSection()} even if tracing has been disabled in
+   * between. Sections are nested on the main thread only.
+   */
+  static void beginSection(String sectionName) {
+    beganSections <<= 1;
+    if (enabled) {
+      TraceCompat.beginSection(sectionName);
+      beganSections |= 1L;
+    }
+  }
+
+  static void endSection() {
+    if ((beganSections & 1L) != 0L) {
+      TraceCompat.endSection();
+    }
+    beganSections >>>= 1;
+  }
+
+}
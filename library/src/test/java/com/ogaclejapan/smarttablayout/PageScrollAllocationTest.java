@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.viewpager.widget.PagerAdapter;
+import androidx.viewpager.widget.ViewPager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Fails if a frame of a page scroll allocates, from {@code onPageScrolled} through the scroll of
+ * the layout to the drawing of the indicator by {@link SmartTabStrip}. The animation callbacks are
+ * run by the test instead of the Choreographer, and the canvas records nothing, so that only the
+ * allocations of the layout are counted.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PageScrollAllocationTest {
+
+  private static final int TAB_COUNT = 20;
+  private static final int FRAMES = 64;
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 144;
+  private static final int WARMUP_DRAGS = 20;
+
+  private com.sun.management.ThreadMXBean threadMXBean;
+  private FrameTabLayout layout;
+  private ViewPager.OnPageChangeListener pageChangeListener;
+  private final Canvas canvas = new NullCanvas(WIDTH, HEIGHT);
+
+  @Before
+  public void setUp() {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+    final Context context = RuntimeEnvironment.application;
+    final CapturingViewPager viewPager = new CapturingViewPager(context);
+    viewPager.setAdapter(new PagerAdapter() {
+      @Override
+      public int getCount() {
+        return TAB_COUNT;
+      }
+
+      @Override
+      public boolean isViewFromObject(@NonNull View view, @NonNull Object object) {
+        return view == object;
+      }
+
+      @Override
+      public CharSequence getPageTitle(int position) {
+        return "Tab " + position;
+      }
+    });
+
+    layout = new FrameTabLayout(context);
+    layout.setCustomTabView(new SmartTabLayout.TabProvider() {
+      @Override
+      public View createTabView(ViewGroup container, int position, PagerAdapter adapter) {
+        View tabView = new View(container.getContext());
+        tabView.setLayoutParams(new LinearLayout.LayoutParams(
+            WIDTH / 4, LinearLayout.LayoutParams.MATCH_PARENT));
+        return tabView;
+      }
+    });
+    layout.setViewPager(viewPager);
+    layout.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+        MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+    layout.layout(0, 0, WIDTH, HEIGHT);
+
+    assertEquals(1, viewPager.pageChangeListeners.size());
+    pageChangeListener = viewPager.pageChangeListeners.get(0);
+  }
+
+  @Test
+  public void pageScrollDoesNotAllocate() {
+    for (int i = 0; i < WARMUP_DRAGS; i++) {
+      drag();
+    }
+
+    final long overhead = allocatedBytes(false);
+    final long allocated = allocatedBytes(true);
+    assertEquals("allocated bytes of " + FRAMES * TAB_COUNT + " frames",
+        0, allocated - overhead);
+  }
+
+  private long allocatedBytes(boolean drag) {
+    final long threadId = Thread.currentThread().getId();
+    final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+    if (drag) {
+      drag();
+    }
+    return threadMXBean.getThreadAllocatedBytes(threadId) - start;
+  }
+
+  /**
+   * Scroll from the first to the last page, then jump back to the first tab.
+   */
+  private void drag() {
+    for (int position = 0; position < TAB_COUNT - 1; position++) {
+      for (int frame = 0; frame < FRAMES; frame++) {
+        final float offset = (float) frame / FRAMES;
+        pageChangeListener.onPageScrolled(position, offset, (int) (offset * WIDTH));
+        layout.runAnimationCallback();
+        layout.tabStrip.onDraw(canvas);
+      }
+    }
+
+    // Blends the colors of two tabs that are not adjacent
+    for (int frame = 0; frame < FRAMES; frame++) {
+      layout.tabStrip.onViewPagerPageJumped(TAB_COUNT - 1, 0, (float) frame / FRAMES);
+      layout.tabStrip.onDraw(canvas);
+    }
+  }
+
+  private static class CapturingViewPager extends ViewPager {
+
+    final List<OnPageChangeListener> pageChangeListeners = new ArrayList<>();
+
+    CapturingViewPager(Context context) {
+      super(context);
+    }
+
+    @Override
+    public void addOnPageChangeListener(@NonNull OnPageChangeListener listener) {
+      pageChangeListeners.add(listener);
+      super.addOnPageChangeListener(listener);
+    }
+
+  }
+
+  /**
+   * Runs the animation callback on the request of the test, like the Choreographer on the next
+   * frame.
+   */
+  private static class FrameTabLayout extends SmartTabLayout {
+
+    private Runnable animationCallback;
+
+    FrameTabLayout(Context context) {
+      super(context);
+    }
+
+    @Override
+    public void postOnAnimation(Runnable action) {
+      animationCallback = action;
+    }
+
+    void runAnimationCallback() {
+      final Runnable action = animationCallback;
+      animationCallback = null;
+      if (action != null) {
+        action.run();
+      }
+    }
+
+  }
+
+  private static class NullCanvas extends Canvas {
+
+    private final int width;
+    private final int height;
+
+    NullCanvas(int width, int height) {
+      this.width = width;
+      this.height = height;
+    }
+
+    @Override
+    public boolean getClipBounds(Rect bounds) {
+      bounds.set(0, 0, width, height);
+      return true;
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+    }
+
+  }
+
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout;
+
+import android.content.Context;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import androidx.annotation.NonNull;
+import androidx.viewpager.widget.PagerAdapter;
+import androidx.viewpager.widget.ViewPager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class SmartTabLayoutTest {
+
+  private static final int TAB_COUNT = 100;
+  private static final int LARGE_TAB_COUNT = 500;
+  private static final int REBIND_COUNT = 10;
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 144;
+
+  private Context context;
+
+  @Before
+  public void setUp() {
+    context = RuntimeEnvironment.application;
+  }
+
+  @Test
+  public void measureEvenlyDistributedTabsOnce() {
+    SmartTabLayout layout = new SmartTabLayout(context);
+    layout.setDistributeEvenly(true);
+    layout.setDistributeEvenlyInViewport(true);
+    layout.setCustomTabView(new CountingTabProvider());
+    layout.setViewPager(createViewPager(TAB_COUNT));
+
+    layout.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+        MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+
+    int totalWidth = 0;
+    for (int i = 0; i < TAB_COUNT; i++) {
+      CountingTabView tabView = (CountingTabView) layout.getTabAt(i);
+      assertEquals("measure count of tab " + i, 1, tabView.measureCount);
+      totalWidth += tabView.getMeasuredWidth();
+    }
+    assertEquals(WIDTH, totalWidth);
+  }
+
+  @Test
+  public void evenlyDistributedTabsScrollWhenWider() {
+    SmartTabLayout layout = new SmartTabLayout(context);
+    layout.setDistributeEvenly(true);
+    layout.setCustomTabView(new SmartTabLayout.TabProvider() {
+      @Override
+      public View createTabView(ViewGroup container, int position, PagerAdapter adapter) {
+        View tabView = new CountingTabView(container.getContext());
+        tabView.setMinimumWidth(WIDTH / 10);
+        tabView.setLayoutParams(new LinearLayout.LayoutParams(
+            LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.MATCH_PARENT));
+        return tabView;
+      }
+    });
+    layout.setViewPager(createViewPager(TAB_COUNT));
+
+    layout.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+        MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+
+    assertEquals(TAB_COUNT * WIDTH / 10, layout.getChildAt(0).getMeasuredWidth());
+  }
+
+  @Test
+  public void selectPageUpdatesOnlyTwoTabs() {
+    SmartTabLayout layout = new SmartTabLayout(context);
+    ViewPager viewPager = createViewPager(LARGE_TAB_COUNT);
+    layout.setCustomTabView(new CountingTabProvider());
+    layout.setViewPager(viewPager);
+
+    // Only the previously selected tab and the new one are updated, whatever the count. Setting
+    // the same state again would not refresh the drawable state, so setSelected itself is counted
+    for (int position : new int[] { 1, 250, LARGE_TAB_COUNT - 1, 0 }) {
+      resetCounts(layout, LARGE_TAB_COUNT);
+      viewPager.setCurrentItem(position, false);
+      assertTrue("setSelected count to select " + position,
+          getSelectCount(layout, LARGE_TAB_COUNT) <= 2);
+      assertTrue(layout.getTabAt(position).isSelected());
+    }
+  }
+
+  @Test
+  public void rebindKeepsOneListener() {
+    SmartTabLayout layout = new SmartTabLayout(context);
+    ViewPager viewPager = createViewPager(TAB_COUNT);
+    ViewPager otherViewPager = createViewPager(TAB_COUNT);
+    CountingPageChangeListener listener = new CountingPageChangeListener();
+    layout.setOnPageChangeListener(listener);
+
+    for (int i = 0; i < REBIND_COUNT; i++) {
+      layout.setViewPager(viewPager);
+      layout.setViewPager(otherViewPager);
+      layout.setViewPager(viewPager);
+    }
+
+    viewPager.setCurrentItem(1, false);
+    assertEquals(1, listener.selectedCount);
+
+    // The pagers bound before do not call the layout anymore
+    otherViewPager.setCurrentItem(1, false);
+    assertEquals(1, listener.selectedCount);
+
+    layout.setViewPager(null);
+    viewPager.setCurrentItem(2, false);
+    assertEquals(1, listener.selectedCount);
+  }
+
+  @Test
+  public void rebindWhileDetachedDoesNotRegisterListener() {
+    SmartTabLayout layout = new SmartTabLayout(context);
+    ViewPager viewPager = createViewPager(TAB_COUNT);
+    CountingPageChangeListener listener = new CountingPageChangeListener();
+    layout.setOnPageChangeListener(listener);
+    layout.setViewPager(viewPager);
+
+    layout.onDetachedFromWindow();
+    layout.setViewPager(viewPager);
+
+    viewPager.setCurrentItem(1, false);
+    assertEquals(0, listener.selectedCount);
+  }
+
+  @Test
+  public void dataSetChangeKeepsUnchangedTabs() {
+    SmartTabLayout layout = new SmartTabLayout(context);
+    ViewPager viewPager = new ViewPager(context);
+    TitlesAdapter adapter = new TitlesAdapter(TAB_COUNT);
+    viewPager.setAdapter(adapter);
+    layout.setCustomTabView(new CountingTabProvider());
+    layout.setViewPager(viewPager);
+
+    View[] tabViews = new View[TAB_COUNT];
+    for (int i = 0; i < TAB_COUNT; i++) {
+      tabViews[i] = layout.getTabAt(i);
+    }
+    adapter.titles[1] = "Changed";
+    adapter.notifyDataSetChanged();
+
+    // The tab views of a plain TabProvider can not be rebound, so only the changed one is created
+    for (int i = 0; i < TAB_COUNT; i++) {
+      if (i == 1) {
+        assertNotSame(tabViews[i], layout.getTabAt(i));
+      } else {
+        assertSame(tabViews[i], layout.getTabAt(i));
+      }
+    }
+  }
+
+  private static void resetCounts(SmartTabLayout layout, int count) {
+    for (int i = 0; i < count; i++) {
+      CountingTabView tabView = (CountingTabView) layout.getTabAt(i);
+      tabView.measureCount = 0;
+      tabView.selectCount = 0;
+    }
+  }
+
+  private static int getSelectCount(SmartTabLayout layout, int count) {
+    int selectCount = 0;
+    for (int i = 0; i < count; i++) {
+      selectCount += ((CountingTabView) layout.getTabAt(i)).selectCount;
+    }
+    return selectCount;
+  }
+
+  private ViewPager createViewPager(final int count) {
+    ViewPager viewPager = new ViewPager(context);
+    viewPager.setAdapter(new PagerAdapter() {
+      @Override
+      public int getCount() {
+        return count;
+      }
+
+      @Override
+      public boolean isViewFromObject(@NonNull View view, @NonNull Object object) {
+        return view == object;
+      }
+
+      @Override
+      public CharSequence getPageTitle(int position) {
+        return "Tab " + position;
+      }
+    });
+    return viewPager;
+  }
+
+  private static class CountingTabProvider implements SmartTabLayout.TabProvider {
+
+    @Override
+    public View createTabView(ViewGroup container, int position, PagerAdapter adapter) {
+      View tabView = new CountingTabView(container.getContext());
+      tabView.setLayoutParams(new LinearLayout.LayoutParams(
+          LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.MATCH_PARENT));
+      return tabView;
+    }
+
+  }
+
+  private static class TitlesAdapter extends PagerAdapter {
+
+    final String[] titles;
+
+    TitlesAdapter(int count) {
+      titles = new String[count];
+      for (int i = 0; i < count; i++) {
+        titles[i] = "Tab " + i;
+      }
+    }
+
+    @Override
+    public int getCount() {
+      return titles.length;
+    }
+
+    @Override
+    public boolean isViewFromObject(@NonNull View view, @NonNull Object object) {
+      return view == object;
+    }
+
+    @Override
+    public CharSequence getPageTitle(int position) {
+      return titles[position];
+    }
+
+  }
+
+  private static class CountingPageChangeListener extends ViewPager.SimpleOnPageChangeListener {
+
+    int selectedCount;
+
+    @Override
+    public void onPageSelected(int position) {
+      selectedCount++;
+    }
+
+  }
+
+  private static class CountingTabView extends View {
+
+    int measureCount;
+    int selectCount;
+
+    CountingTabView(Context context) {
+      super(context);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+      measureCount++;
+      super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override
+    public void setSelected(boolean selected) {
+      selectCount++;
+      super.setSelected(selected);
+    }
+
+  }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2015 ogaclejapan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ogaclejapan.smarttablayout.utils;
+
+import androidx.annotation.RestrictTo;
+import androidx.core.os.TraceCompat;
+
+/**
+ * Trace sections around the instantiation of the pages, disabled by default.
+ */
+public final class Tracing {
+
+  private static boolean enabled;
+
+  private Tracing() { }
+
+  /**
+   * Enable the trace sections around {@link ViewPagerItem#initiate} and
+   * {@code FragmentPagerItem#instantiate}, to be inspected with systrace or Perfetto. Disabled by
+   * default, which costs only a check of this flag.
+   *
+   * @param enabled true to emit the trace sections
+   */
+  public static void setEnabled(boolean enabled) {
+    Tracing.enabled = enabled;
+  }
+
+  /**
+   * @return true if the section has begun, to be passed to {@link #endSection(boolean)}
+   */
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+  public static boolean beginSection(String sectionName) {
+    if (!enabled) {
+      return false;
+    }
+    TraceCompat.beginSection(sectionName);
+    return true;
+  }
+
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+  public static void endSection(boolean begun) {
+    if (begun) {
+      TraceCompat.endSection();
+    }
+  }
+
+}
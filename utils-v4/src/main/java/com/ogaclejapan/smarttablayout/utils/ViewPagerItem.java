@@ -39,7 +39,12 @@ public class ViewPagerItem extends PagerItem {
   }
 
   public View initiate(LayoutInflater inflater, ViewGroup container) {
-    return inflater.inflate(resource, container, false);
+    final boolean traced = Tracing.beginSection("ViewPagerItem.initiate");
+    try {
+      return inflater.inflate(resource, container, false);
+    } finally {
+      Tracing.endSection(traced);
+    }
   }
 
 }
@@ -19,6 +19,7 @@ import android.content.Context;
 import android.os.Bundle;
 
 import com.ogaclejapan.smarttablayout.utils.PagerItem;
+import com.ogaclejapan.smarttablayout.utils.Tracing;
 
 import androidx.fragment.app.Fragment;
 
@@ -68,8 +69,13 @@ public class FragmentPagerItem extends PagerItem {
   }
 
   public Fragment instantiate(Context context, int position) {
-    setPosition(args, position);
-    return Fragment.instantiate(context, className, args);
+    final boolean traced = Tracing.beginSection("FragmentPagerItem.instantiate");
+    try {
+      setPosition(args, position);
+      return Fragment.instantiate(context, className, args);
+    } finally {
+      Tracing.endSection(traced);
+    }
   }
 
 }